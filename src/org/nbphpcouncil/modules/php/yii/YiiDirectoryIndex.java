@@ -0,0 +1,208 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Prefix index of directory children for path completion (path aliases and
+ * view paths). The children of a directory are sorted by name once and
+ * looked up with binary search. A listing is dropped when file events for
+ * its children are delivered and rebuilt on the next query.
+ *
+ * @author junichi11
+ */
+public final class YiiDirectoryIndex implements YiiFileChangeSupport.Listener {
+
+    private static final Comparator<FileObject> NAME_COMPARATOR = new Comparator<FileObject>() {
+        @Override
+        public int compare(FileObject o1, FileObject o2) {
+            return o1.getName().compareTo(o2.getName());
+        }
+    };
+    private final YiiFileChangeSupport fileChangeSupport;
+    // @GuardedBy("listings")
+    private final Map<FileObject, Listing> listings = new WeakHashMap<>();
+
+    YiiDirectoryIndex(YiiFileChangeSupport fileChangeSupport) {
+        this.fileChangeSupport = fileChangeSupport;
+    }
+
+    /**
+     * Get children of the directory whose names start with the prefix.
+     *
+     * @param directory directory
+     * @param prefix prefix of the name (without extension)
+     * @return children sorted by name
+     */
+    public List<FileObject> getChildren(FileObject directory, String prefix) {
+        if (directory == null || !directory.isFolder()) {
+            return Collections.emptyList();
+        }
+        return getListing(directory).find(prefix);
+    }
+
+    /**
+     * Build listings of the directories in advance.
+     *
+     * @param directories directories
+     */
+    void prepare(Iterable<FileObject> directories) {
+        for (FileObject directory : directories) {
+            if (directory != null && directory.isFolder()) {
+                getListing(directory);
+            }
+        }
+    }
+
+    void clear() {
+        synchronized (listings) {
+            listings.clear();
+        }
+    }
+
+    private Listing getListing(FileObject directory) {
+        synchronized (listings) {
+            Listing listing = listings.get(directory);
+            if (listing != null) {
+                return listing;
+            }
+        }
+        // events of a directory outside the roots are needed to keep it fresh
+        fileChangeSupport.addFolder(directory);
+        Listing listing = new Listing(directory.getChildren());
+        synchronized (listings) {
+            listings.put(directory, listing);
+        }
+        return listing;
+    }
+
+    @Override
+    public void filesChanged(Set<FileObject> files, boolean isStructural) {
+        synchronized (listings) {
+            for (FileObject file : files) {
+                if (!file.isValid()) {
+                    listings.remove(file);
+                }
+                FileObject parent = file.getParent();
+                if (parent == null) {
+                    continue;
+                }
+                Listing listing = listings.get(parent);
+                // a child is created, renamed or deleted
+                if (listing != null && !listing.contains(file)) {
+                    listings.remove(parent);
+                }
+            }
+            for (Iterator<FileObject> iterator = listings.keySet().iterator(); iterator.hasNext();) {
+                if (!iterator.next().isValid()) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    //~ Inner classes
+    private static final class Listing {
+
+        private final String[] names;
+        private final FileObject[] children;
+
+        Listing(FileObject[] children) {
+            this.children = children.clone();
+            Arrays.sort(this.children, NAME_COMPARATOR);
+            names = new String[children.length];
+            for (int i = 0; i < this.children.length; i++) {
+                names[i] = this.children[i].getName();
+            }
+        }
+
+        List<FileObject> find(String prefix) {
+            int index = lowerBound(prefix);
+            List<FileObject> result = new ArrayList<>();
+            for (int i = index; i < names.length && names[i].startsWith(prefix); i++) {
+                result.add(children[i]);
+            }
+            return result;
+        }
+
+        /**
+         * Check whether the file is contained with the same name (i.e. not
+         * created, renamed nor deleted).
+         */
+        boolean contains(FileObject file) {
+            if (!file.isValid()) {
+                return false;
+            }
+            String name = file.getName();
+            for (int i = lowerBound(name); i < names.length && names[i].equals(name); i++) {
+                if (children[i].equals(file)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private int lowerBound(String prefix) {
+            int low = 0;
+            int high = names.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (names[mid].compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
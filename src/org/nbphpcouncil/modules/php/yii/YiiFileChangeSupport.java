@@ -0,0 +1,250 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.openide.filesystems.FileChangeAdapter;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Collects file events under the Yii roots and delivers them as one batch.
+ * Bursts of events (e.g. switching branches) are coalesced into one
+ * notification on a background thread.
+ *
+ * @author junichi11
+ */
+public final class YiiFileChangeSupport extends FileChangeAdapter {
+
+    private static final RequestProcessor RP = new RequestProcessor(YiiFileChangeSupport.class);
+    private static final int DELAY = 500; // ms
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final RequestProcessor.Task task = RP.create(new Runnable() {
+        @Override
+        public void run() {
+            fireFilesChanged();
+        }
+    });
+    // @GuardedBy("this")
+    private Set<FileObject> changedFiles = new HashSet<>();
+    // @GuardedBy("this")
+    private boolean isStructural;
+    // @GuardedBy("this")
+    private final Set<File> roots = new HashSet<>();
+    // @GuardedBy("this")
+    private final Set<FileObject> folders = new HashSet<>();
+
+    /**
+     * Listen to all files under the root recursively.
+     *
+     * @param root root directory
+     */
+    public void addRoot(FileObject root) {
+        final File file = FileUtil.toFile(root);
+        if (file == null) {
+            addFolder(root);
+            return;
+        }
+        synchronized (this) {
+            if (!roots.add(file)) {
+                return;
+            }
+        }
+        // it walks through all subdirectories
+        RP.post(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (YiiFileChangeSupport.this) {
+                    if (!roots.contains(file)) {
+                        // already removed
+                        return;
+                    }
+                }
+                FileUtil.addRecursiveListener(YiiFileChangeSupport.this, file);
+            }
+        });
+    }
+
+    /**
+     * Listen to the folder and its children (not recursively). Use for the
+     * directory which is not contained in the roots.
+     *
+     * @param folder folder
+     */
+    public void addFolder(FileObject folder) {
+        if (isUnderRoots(folder)) {
+            return;
+        }
+        synchronized (this) {
+            if (!folders.add(folder)) {
+                return;
+            }
+        }
+        folder.addFileChangeListener(this);
+    }
+
+    /**
+     * Stop listening.
+     */
+    public void removeAll() {
+        Set<File> currentRoots;
+        Set<FileObject> currentFolders;
+        synchronized (this) {
+            currentRoots = new HashSet<>(roots);
+            currentFolders = new HashSet<>(folders);
+            roots.clear();
+            folders.clear();
+            changedFiles.clear();
+            isStructural = false;
+        }
+        for (File root : currentRoots) {
+            try {
+                FileUtil.removeRecursiveListener(this, root);
+            } catch (IllegalArgumentException ex) {
+                // noop, not added yet
+            }
+        }
+        for (FileObject folder : currentFolders) {
+            folder.removeFileChangeListener(this);
+        }
+        task.cancel();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private synchronized boolean isUnderRoots(FileObject file) {
+        File path = FileUtil.toFile(file);
+        if (path == null) {
+            return false;
+        }
+        for (File root : roots) {
+            if (path.equals(root) || path.getAbsolutePath().startsWith(root.getAbsolutePath() + File.separator)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void changed(FileObject file, boolean structural) {
+        if (file == null) {
+            return;
+        }
+        synchronized (this) {
+            changedFiles.add(file);
+            isStructural |= structural;
+        }
+        task.schedule(DELAY);
+    }
+
+    private void fireFilesChanged() {
+        Set<FileObject> files;
+        boolean structural;
+        synchronized (this) {
+            if (changedFiles.isEmpty()) {
+                return;
+            }
+            files = Collections.unmodifiableSet(changedFiles);
+            structural = isStructural;
+            changedFiles = new HashSet<>();
+            isStructural = false;
+        }
+        for (Listener listener : listeners) {
+            listener.filesChanged(files, structural);
+        }
+    }
+
+    //~ FS
+    @Override
+    public void fileFolderCreated(FileEvent fe) {
+        changed(fe.getFile(), true);
+    }
+
+    @Override
+    public void fileDataCreated(FileEvent fe) {
+        changed(fe.getFile(), true);
+    }
+
+    @Override
+    public void fileChanged(FileEvent fe) {
+        // content only
+        changed(fe.getFile(), false);
+    }
+
+    @Override
+    public void fileDeleted(FileEvent fe) {
+        changed(fe.getFile(), true);
+    }
+
+    @Override
+    public void fileRenamed(FileRenameEvent fe) {
+        changed(fe.getFile(), true);
+    }
+
+    //~ Inner classes
+    public interface Listener {
+
+        /**
+         * Called on a background thread with the files which are created,
+         * changed, deleted or renamed since the last notification. Deleted
+         * files are no longer valid.
+         *
+         * @param files changed files
+         * @param isStructural true if the batch contains created, deleted or
+         * renamed files, false if only contents of files are changed
+         */
+        void filesChanged(Set<FileObject> files, boolean isStructural);
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import org.nbphpcouncil.modules.php.yii.YiiFileDescriptor.Role;
+import org.nbphpcouncil.modules.php.yii.util.YiiUtils;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Classify files of a Yii application. A path is split into segments once
+ * and the result is cached per FileObject.
+ *
+ * @author junichi11
+ */
+public final class YiiFileClassifier implements YiiFileChangeSupport.Listener {
+
+    private static final String SLASH = "/"; // NOI18N
+    private static final String PHP_EXT = ".php"; // NOI18N
+    private static final String MODULES = "modules"; // NOI18N
+    private static final String VIEWS = "views"; // NOI18N
+    private static final String LAYOUTS = "layouts"; // NOI18N
+    private static final String CONTROLLERS = "controllers"; // NOI18N
+    private static final String MESSAGES = "messages"; // NOI18N
+    private static final String CONFIG = "config"; // NOI18N
+    private static final String MIGRATIONS = "migrations"; // NOI18N
+    private static final String COMMANDS = "commands"; // NOI18N
+    private static final String MODULE_SUFFIX = "Module"; // NOI18N
+    private static final String COMMAND_SUFFIX = "Command"; // NOI18N
+    private final YiiModule yiiModule;
+    // @GuardedBy("cache")
+    private final Map<FileObject, Entry> cache = new WeakHashMap<>();
+
+    /**
+     * Base directory of a relative path.
+     */
+    enum Base {
+
+        APPLICATION,
+        THEMES,
+        VIEWS,
+        CONTROLLERS
+    }
+
+    YiiFileClassifier(YiiModule yiiModule) {
+        this.yiiModule = yiiModule;
+    }
+
+    /**
+     * Classify the file.
+     *
+     * @param file file
+     * @return descriptor
+     */
+    public YiiFileDescriptor classify(FileObject file) {
+        String path = file.getPath();
+        synchronized (cache) {
+            Entry entry = cache.get(file);
+            // the path is changed if the file is renamed or moved
+            if (entry != null && entry.path.equals(path)) {
+                return entry.descriptor;
+            }
+        }
+        YiiFileDescriptor descriptor = classify(file, path);
+        synchronized (cache) {
+            cache.put(file, new Entry(path, descriptor));
+        }
+        return descriptor;
+    }
+
+    private YiiFileDescriptor classify(FileObject file, String path) {
+        if (file.isFolder()) {
+            return YiiFileDescriptor.OTHER;
+        }
+        String relativePath = getRelativePath(yiiModule.getViews(), path);
+        if (relativePath != null) {
+            return classify(relativePath, Base.VIEWS);
+        }
+        relativePath = getRelativePath(yiiModule.getControllers(), path);
+        if (relativePath != null) {
+            return classify(relativePath, Base.CONTROLLERS);
+        }
+        relativePath = getRelativePath(yiiModule.getThemes(), path);
+        if (relativePath != null) {
+            return classify(relativePath, Base.THEMES);
+        }
+        relativePath = getRelativePath(yiiModule.getApplication(), path);
+        if (relativePath != null) {
+            return classify(relativePath, Base.APPLICATION);
+        }
+        // e.g. views of extensions outside the application
+        relativePath = getRelativePath(yiiModule.getWebroot(), path);
+        if (relativePath != null) {
+            YiiFileDescriptor descriptor = classify(relativePath, Base.APPLICATION);
+            if (descriptor.isView()) {
+                return descriptor;
+            }
+        }
+        return YiiFileDescriptor.OTHER;
+    }
+
+    /**
+     * Clear the cache. Use when directories are changed.
+     */
+    void reset() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public void filesChanged(Set<FileObject> files, boolean isStructural) {
+        List<FileObject> folders = new ArrayList<>();
+        for (FileObject file : files) {
+            if (file.isFolder()) {
+                folders.add(file);
+            }
+        }
+        synchronized (cache) {
+            for (FileObject file : files) {
+                cache.remove(file);
+            }
+            if (folders.isEmpty()) {
+                return;
+            }
+            // renamed or moved folders
+            for (Iterator<FileObject> iterator = cache.keySet().iterator(); iterator.hasNext();) {
+                FileObject file = iterator.next();
+                for (FileObject folder : folders) {
+                    if (FileUtil.isParentOf(folder, file)) {
+                        iterator.remove();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static String getRelativePath(FileObject directory, String path) {
+        if (directory == null) {
+            return null;
+        }
+        String directoryPath = directory.getPath() + SLASH;
+        if (path.startsWith(directoryPath)) {
+            return path.substring(directoryPath.length());
+        }
+        return null;
+    }
+
+    /**
+     * Classify the relative path.
+     *
+     * @param relativePath relative path from the base directory
+     * @param base base directory
+     * @return descriptor
+     */
+    static YiiFileDescriptor classify(String relativePath, Base base) {
+        String[] segments = relativePath.split(SLASH);
+        int last = segments.length - 1;
+        String fileName = segments[last];
+        switch (base) {
+            case VIEWS:
+                return createView(segments, 0, new ArrayList<String>(), "", ""); // NOI18N
+            case CONTROLLERS:
+                return createController(segments, 0, new ArrayList<String>(), ""); // NOI18N
+            case THEMES:
+                if (segments.length > 2 && VIEWS.equals(segments[1])) {
+                    return createView(segments, 2, new ArrayList<String>(), "", segments[0]); // NOI18N
+                }
+                return new YiiFileDescriptor(Role.THEME, new ArrayList<String>(), "", last > 0 ? segments[0] : "", "", "", ""); // NOI18N
+            case APPLICATION:
+                break;
+            default:
+                throw new AssertionError(base.name());
+        }
+
+        // modules/{id}/modules/{id}/...
+        List<String> moduleNames = new ArrayList<>();
+        StringBuilder modulePath = new StringBuilder();
+        int index = 0;
+        while (index + 1 < last && MODULES.equals(segments[index])) {
+            moduleNames.add(segments[index + 1]);
+            if (modulePath.length() > 0) {
+                modulePath.append(SLASH);
+            }
+            modulePath.append(MODULES).append(SLASH).append(segments[index + 1]);
+            index += 2;
+        }
+        if (index == last) {
+            if (!moduleNames.isEmpty() && fileName.endsWith(MODULE_SUFFIX + PHP_EXT)) {
+                return new YiiFileDescriptor(Role.MODULE, moduleNames, modulePath.toString(), "", "", "", ""); // NOI18N
+            }
+            return new YiiFileDescriptor(Role.OTHER, moduleNames, modulePath.toString(), "", "", "", ""); // NOI18N
+        }
+        Role role = Role.OTHER;
+        switch (segments[index]) {
+            case VIEWS:
+                return createView(segments, index + 1, moduleNames, modulePath.toString(), ""); // NOI18N
+            case CONTROLLERS:
+                return createController(segments, index + 1, moduleNames, modulePath.toString());
+            case MESSAGES:
+                role = Role.MESSAGE;
+                break;
+            case CONFIG:
+                role = Role.CONFIG;
+                break;
+            case MIGRATIONS:
+                role = Role.MIGRATION;
+                break;
+            case COMMANDS:
+                if (fileName.endsWith(COMMAND_SUFFIX + PHP_EXT)) {
+                    role = Role.COMMAND;
+                }
+                break;
+            default:
+                // widget views e.g. components/views/foo.php
+                for (int i = index + 1; i < last; i++) {
+                    if (VIEWS.equals(segments[i])) {
+                        return createView(segments, i + 1, moduleNames, modulePath.toString(), ""); // NOI18N
+                    }
+                }
+                break;
+        }
+        if (!fileName.endsWith(PHP_EXT)) {
+            role = Role.OTHER;
+        }
+        return new YiiFileDescriptor(role, moduleNames, modulePath.toString(), "", "", "", ""); // NOI18N
+    }
+
+    /**
+     * Create a descriptor for {nested}/{controllerId}/{view}.php
+     */
+    private static YiiFileDescriptor createView(String[] segments, int start, List<String> moduleNames, String modulePath, String themeName) {
+        int last = segments.length - 1;
+        if (start > last || !segments[last].endsWith(PHP_EXT)) {
+            return new YiiFileDescriptor(Role.OTHER, moduleNames, modulePath, themeName, "", "", ""); // NOI18N
+        }
+        Role role = LAYOUTS.equals(segments[start]) && start < last ? Role.LAYOUT : Role.VIEW;
+        String controllerId = ""; // NOI18N
+        if (role == Role.VIEW && last - start >= 1) {
+            controllerId = segments[last - 1];
+        }
+        return new YiiFileDescriptor(
+                role,
+                moduleNames,
+                modulePath,
+                themeName,
+                controllerId,
+                join(segments, start, last - 1),
+                removeExtension(join(segments, start, last + 1)));
+    }
+
+    /**
+     * Create a descriptor for {nested}/{Id}Controller.php
+     */
+    private static YiiFileDescriptor createController(String[] segments, int start, List<String> moduleNames, String modulePath) {
+        int last = segments.length - 1;
+        String fileName = segments[last];
+        if (start > last || !fileName.endsWith(PHP_EXT)) {
+            return new YiiFileDescriptor(Role.OTHER, moduleNames, modulePath, "", "", "", ""); // NOI18N
+        }
+        String controllerId = YiiUtils.getViewFolderName(removeExtension(fileName));
+        if (controllerId == null) {
+            return new YiiFileDescriptor(Role.OTHER, moduleNames, modulePath, "", "", "", ""); // NOI18N
+        }
+        return new YiiFileDescriptor(Role.CONTROLLER, moduleNames, modulePath, "", controllerId, join(segments, start, last), ""); // NOI18N
+    }
+
+    /**
+     * Join segments [start, end). A trailing slash is added to the path of
+     * directories.
+     */
+    private static String join(String[] segments, int start, int end) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = start; i < end; i++) {
+            sb.append(segments[i]);
+            if (i < segments.length - 1) {
+                sb.append(SLASH);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String removeExtension(String name) {
+        if (name.endsWith(PHP_EXT)) {
+            return name.substring(0, name.length() - PHP_EXT.length());
+        }
+        return name;
+    }
+
+    //~ Inner classes
+    private static final class Entry {
+
+        private final String path;
+        private final YiiFileDescriptor descriptor;
+
+        public Entry(String path, YiiFileDescriptor descriptor) {
+            this.path = path;
+            this.descriptor = descriptor;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable description of a file in a Yii application.
+ *
+ * @author junichi11
+ * @see YiiFileClassifier
+ */
+public final class YiiFileDescriptor {
+
+    public enum Role {
+
+        CONTROLLER,
+        VIEW,
+        LAYOUT,
+        MODULE,
+        THEME,
+        MESSAGE,
+        CONFIG,
+        MIGRATION,
+        COMMAND,
+        OTHER
+    }
+
+    static final YiiFileDescriptor OTHER = new YiiFileDescriptor(Role.OTHER, Collections.<String>emptyList(), "", "", "", "", ""); // NOI18N
+    private final Role role;
+    private final List<String> moduleNames;
+    private final String modulePath;
+    private final String themeName;
+    private final String controllerId;
+    private final String nestedPath;
+    private final String viewPath;
+
+    YiiFileDescriptor(Role role, List<String> moduleNames, String modulePath, String themeName, String controllerId, String nestedPath, String viewPath) {
+        this.role = role;
+        this.moduleNames = Collections.unmodifiableList(moduleNames);
+        this.modulePath = modulePath;
+        this.themeName = themeName;
+        this.controllerId = controllerId;
+        this.nestedPath = nestedPath;
+        this.viewPath = viewPath;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    /**
+     * Check whether the file is a view file (including layout).
+     *
+     * @return {@code true} if the file is a view file, otherwise
+     * {@code false}
+     */
+    public boolean isView() {
+        return role == Role.VIEW || role == Role.LAYOUT;
+    }
+
+    /**
+     * Get module names from outer to inner. e.g. [admin, user] for
+     * modules/admin/modules/user/...
+     *
+     * @return module names, empty list if the file is not in modules
+     */
+    public List<String> getModuleNames() {
+        return moduleNames;
+    }
+
+    /**
+     * Get the innermost module name.
+     *
+     * @return module name if the file is in modules, otherwise null
+     */
+    public String getModuleName() {
+        if (moduleNames.isEmpty()) {
+            return null;
+        }
+        return moduleNames.get(moduleNames.size() - 1);
+    }
+
+    /**
+     * Get the path of the innermost module directory from the application
+     * directory. e.g. modules/admin
+     *
+     * @return module path, empty string if the file is not in modules
+     */
+    public String getModulePath() {
+        return modulePath;
+    }
+
+    /**
+     * Get theme name.
+     *
+     * @return theme name, empty string if the file is not in themes
+     */
+    public String getThemeName() {
+        return themeName;
+    }
+
+    /**
+     * Get controller id for a controller or a view. e.g. site
+     *
+     * @return controller id, empty string if it is unknown
+     */
+    public String getControllerId() {
+        return controllerId;
+    }
+
+    /**
+     * Get nested path from controllers (views) directory to the controller
+     * (controller id directory). e.g. admin/
+     *
+     * @return nested path, empty string if it is not nested
+     */
+    public String getNestedPath() {
+        return nestedPath;
+    }
+
+    /**
+     * Get view path from views directory without extension. e.g. site/index
+     *
+     * @return view path, empty string if the file is not a view
+     */
+    public String getViewPath() {
+        return viewPath;
+    }
+}
@@ -41,6 +41,14 @@
  */
 package org.nbphpcouncil.modules.php.yii;
 
+import org.nbphpcouncil.modules.php.yii.config.YiiConfig;
+import org.nbphpcouncil.modules.php.yii.index.YiiAttributeCatalog;
+import org.nbphpcouncil.modules.php.yii.index.YiiIndex;
+import org.nbphpcouncil.modules.php.yii.index.YiiMessageCatalog;
+import org.nbphpcouncil.modules.php.yii.index.YiiPropertyCatalog;
+import org.nbphpcouncil.modules.php.yii.util.PathAliasCache;
+import org.nbphpcouncil.modules.php.yii.util.PathAliasTrie;
+import org.nbphpcouncil.modules.php.yii.util.YiiRouteTable;
 import org.openide.filesystems.FileObject;
 
 /**
@@ -88,8 +96,106 @@ public abstract class YiiModule {
 
     public abstract String getThemeName();
 
+    /**
+     * Get the cache of view files which are resolved from render methods.
+     *
+     * @return view cache
+     */
+    public abstract YiiViewCache getViewCache();
+
+    /**
+     * Get the classifier of files (controller, view, module, ...).
+     *
+     * @return file classifier
+     */
+    public abstract YiiFileClassifier getFileClassifier();
+
+    /**
+     * Get path aliases. Contains default aliases (e.g. application), aliases
+     * of the config and Yii::setPathOfAlias() in the entry script and config
+     * files.
+     *
+     * @return path aliases
+     */
+    public abstract PathAliasTrie<FileObject> getPathAliases();
+
+    /**
+     * Get the cache of resolved path aliases.
+     *
+     * @return path alias cache
+     */
+    public abstract PathAliasCache getPathAliasCache();
+
+    /**
+     * Get the prefix index of directory children for path completion.
+     *
+     * @return directory index
+     */
+    public abstract YiiDirectoryIndex getDirectoryIndex();
+
+    /**
+     * Get the catalog of writable class properties for widget completion.
+     *
+     * @return property catalog
+     */
+    public abstract YiiPropertyCatalog getPropertyCatalog();
+
+    /**
+     * Get the catalog of translation messages for Yii::t().
+     *
+     * @return message catalog
+     */
+    public abstract YiiMessageCatalog getMessageCatalog();
+
+    /**
+     * Get the catalog of model attributes.
+     *
+     * @return attribute catalog
+     */
+    public abstract YiiAttributeCatalog getAttributeCatalog();
+
+    /**
+     * Get the snapshot of the application config (main.php). It is replaced
+     * when the config files are changed.
+     *
+     * @return config snapshot
+     */
+    public abstract YiiConfig getConfig();
+
     public abstract void initDirectories();
 
+    /**
+     * Get the index of Yii project model.
+     *
+     * @return YiiIndex
+     */
+    public abstract YiiIndex getIndex();
+
+    /**
+     * Get the table of routes (module/controller/action) of the indexed
+     * controllers. It is replaced when controllers are changed.
+     *
+     * @return route table
+     */
+    public abstract YiiRouteTable getRouteTable();
+
+    /**
+     * Add a listener which is notified of batched file changes under the Yii
+     * roots.
+     *
+     * @param listener listener
+     */
+    public abstract void addFilesChangedListener(YiiFileChangeSupport.Listener listener);
+
+    public abstract void removeFilesChangedListener(YiiFileChangeSupport.Listener listener);
+
+    /**
+     * Release resources (e.g. listeners). This is called when the module is
+     * removed from the registry.
+     */
+    protected void dispose() {
+    }
+
     public FileObject getDirectory(PATH_ALIAS alias) {
         switch (alias) {
             case SYSTEM:
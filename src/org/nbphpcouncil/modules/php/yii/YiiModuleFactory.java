@@ -41,25 +41,179 @@
  */
 package org.nbphpcouncil.modules.php.yii;
 
-import java.util.HashMap;
+import java.lang.ref.Reference;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.prefs.PreferenceChangeEvent;
+import java.util.prefs.PreferenceChangeListener;
+import org.nbphpcouncil.modules.php.yii.preferences.YiiPreferences;
+import org.nbphpcouncil.modules.php.yii.util.ProjectPropertiesSupport;
+import org.netbeans.api.project.Project;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.netbeans.modules.php.api.phpmodule.PhpModuleProperties;
+import org.netbeans.spi.project.support.ant.AntProjectEvent;
+import org.netbeans.spi.project.support.ant.AntProjectHelper;
+import org.netbeans.spi.project.support.ant.AntProjectListener;
+import org.openide.filesystems.FileObject;
 
 /**
+ * Registry of YiiModules. PhpModules are weakly referenced. A YiiModule is
+ * kept while its project is open, it is evicted when the project is closed
+ * and rebuilt when the framework setting or the webroot is changed.
  *
  * @author junichi11
  */
 public final class YiiModuleFactory {
 
-    private static final Map<PhpModule, YiiModule> modules = new HashMap<>();
+    // @GuardedBy("REGISTRY")
+    private static final Map<PhpModule, Reference<Registration>> REGISTRY = new WeakHashMap<>();
+
+    private YiiModuleFactory() {
+    }
 
     public static YiiModule create(PhpModule phpModule) {
-        YiiModule module = modules.get(phpModule);
-        if (module != null) {
-            return module;
+        synchronized (REGISTRY) {
+            Registration registration = getRegistration(phpModule);
+            if (registration != null) {
+                return registration.getYiiModule();
+            }
+            registration = new Registration(phpModule, new YiiModuleImpl(phpModule));
+            if (registration.attach()) {
+                REGISTRY.put(phpModule, new WeakReference<>(registration));
+            } else {
+                // not an ant based project, nothing keeps the registration
+                REGISTRY.put(phpModule, new SoftReference<>(registration));
+            }
+            return registration.getYiiModule();
+        }
+    }
+
+    /**
+     * Remove YiiModule for PhpModule. Use when the project is closed.
+     *
+     * @param phpModule PhpModule
+     */
+    public static void remove(PhpModule phpModule) {
+        Registration registration;
+        synchronized (REGISTRY) {
+            registration = getRegistration(phpModule);
+            REGISTRY.remove(phpModule);
+        }
+        if (registration != null) {
+            registration.detach();
+        }
+    }
+
+    /**
+     * Remove YiiModule only if it is the same as the specified one. Another
+     * module might be already created.
+     */
+    private static void remove(PhpModule phpModule, Registration target) {
+        synchronized (REGISTRY) {
+            if (getRegistration(phpModule) != target) {
+                return;
+            }
+            REGISTRY.remove(phpModule);
+        }
+        target.detach();
+    }
+
+    // @GuardedBy("REGISTRY")
+    private static Registration getRegistration(PhpModule phpModule) {
+        Reference<Registration> reference = REGISTRY.get(phpModule);
+        if (reference == null) {
+            return null;
+        }
+        return reference.get();
+    }
+
+    //~ Inner classes
+    /**
+     * Keeps the YiiModule. This is strongly referenced only from the
+     * AntProjectHelper of the project, so it never outlives the project.
+     * Otherwise, it is softly referenced from the registry.
+     */
+    private static final class Registration implements AntProjectListener, PreferenceChangeListener {
+
+        private final PhpModule phpModule;
+        private final YiiModule yiiModule;
+        private final FileObject webroot;
+        private final boolean isEnabled;
+        private AntProjectHelper helper;
+        private PreferenceChangeListener preferenceChangeListener;
+
+        public Registration(PhpModule phpModule, YiiModule yiiModule) {
+            this.phpModule = phpModule;
+            this.yiiModule = yiiModule;
+            this.webroot = getWebroot();
+            this.isEnabled = YiiPreferences.isEnabled(phpModule);
+        }
+
+        public YiiModule getYiiModule() {
+            return yiiModule;
+        }
+
+        /**
+         * Add listeners.
+         *
+         * @return {@code true} if this is kept by the project, otherwise
+         * {@code false}
+         */
+        boolean attach() {
+            preferenceChangeListener = YiiPreferences.addWeakPreferenceChangeListener(phpModule, this);
+            Project project = ProjectPropertiesSupport.getProject(phpModule);
+            if (project != null) {
+                helper = project.getLookup().lookup(AntProjectHelper.class);
+                if (helper != null) {
+                    helper.addAntProjectListener(this);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void detach() {
+            if (helper != null) {
+                helper.removeAntProjectListener(this);
+            }
+            YiiPreferences.removePreferenceChangeListener(phpModule, preferenceChangeListener);
+            yiiModule.dispose();
+        }
+
+        private FileObject getWebroot() {
+            PhpModuleProperties.Factory factory = phpModule.getLookup().lookup(PhpModuleProperties.Factory.class);
+            if (factory != null) {
+                FileObject webRoot = factory.getProperties().getWebRoot();
+                if (webRoot != null) {
+                    return webRoot;
+                }
+            }
+            return phpModule.getSourceDirectory();
+        }
+
+        @Override
+        public void configurationXmlChanged(AntProjectEvent ev) {
+        }
+
+        @Override
+        public void propertiesChanged(AntProjectEvent ev) {
+            // webroot might be changed
+            FileObject currentWebroot = getWebroot();
+            if (webroot == null ? currentWebroot != null : !webroot.equals(currentWebroot)) {
+                remove(phpModule, this);
+            }
+        }
+
+        @Override
+        public void preferenceChange(PreferenceChangeEvent evt) {
+            // framework is enabled or disabled (PhpModule.PROPERTY_FRAMEWORKS)
+            // the event is delivered asynchronously, this might be already created with the new state
+            if (YiiPreferences.ENABLED.equals(evt.getKey())
+                    && YiiPreferences.isEnabled(phpModule) != isEnabled) {
+                remove(phpModule, this);
+            }
         }
-        module = new YiiModuleImpl(phpModule);
-        modules.put(phpModule, module);
-        return module;
     }
 }
@@ -41,19 +41,43 @@
  */
 package org.nbphpcouncil.modules.php.yii;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.prefs.PreferenceChangeEvent;
+import java.util.prefs.PreferenceChangeListener;
+import org.nbphpcouncil.modules.php.yii.config.YiiConfig;
+import org.nbphpcouncil.modules.php.yii.config.YiiConfigParser;
+import org.nbphpcouncil.modules.php.yii.index.YiiAttributeCatalog;
+import org.nbphpcouncil.modules.php.yii.index.YiiIndex;
+import org.nbphpcouncil.modules.php.yii.index.YiiIndex.IndexedController;
+import org.nbphpcouncil.modules.php.yii.index.YiiMessageCatalog;
+import org.nbphpcouncil.modules.php.yii.index.YiiPropertyCatalog;
 import org.nbphpcouncil.modules.php.yii.preferences.YiiPreferences;
+import org.nbphpcouncil.modules.php.yii.util.PathAliasCache;
+import org.nbphpcouncil.modules.php.yii.util.PathAliasTrie;
+import org.nbphpcouncil.modules.php.yii.util.YiiRouteTable;
 import org.nbphpcouncil.modules.php.yii.util.YiiUtils;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
 import org.netbeans.modules.php.api.phpmodule.PhpModuleProperties;
 import org.netbeans.modules.php.api.util.StringUtils;
-import org.openide.filesystems.FileChangeAdapter;
-import org.openide.filesystems.FileEvent;
+import org.netbeans.modules.parsing.api.indexing.IndexingManager;
 import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
 
 /**
+ * Directories are resolved lazily on first access and cached. Each cached
+ * directory is invalidated when its preference is changed or when file events
+ * under the Yii roots affect it. File events are coalesced by
+ * {@link YiiFileChangeSupport}.
  *
  * @author junichi11
  */
@@ -65,32 +89,116 @@ public class YiiModuleImpl extends YiiModule {
     private static final String ZII = "zii"; // NOI18N
     private static final String ENTRY_SCRIPT = "index.php"; // NOI18N
     private static final String CONFIG = "config"; // NOI18N
+    private static final String MODULE_CONTROLLERS_PATH_FORMAT = "modules/%s/controllers"; // NOI18N
     private final PhpModule phpModule;
-    private String themeName;
-    protected String systemPath;
+    private final YiiIndex yiiIndex;
+    private final YiiViewCache viewCache;
+    private final YiiFileClassifier fileClassifier;
+    private final PathAliasCache pathAliasCache = new PathAliasCache();
+    private final YiiDirectoryIndex directoryIndex;
+    private final YiiPropertyCatalog propertyCatalog;
+    private final YiiMessageCatalog messageCatalog;
+    private final YiiAttributeCatalog attributeCatalog;
+    protected volatile String systemPath;
     protected FileObject index;
     protected FileObject config;
     protected FileObject main;
-    private FileObject systemDirectory;
-    private FileObject applicationDirectory;
-    private FileObject ziiDirectory;
-    private FileObject extDirectory;
-    private FileObject webrootDirectory;
-    private FileObject controllersDirectory;
-    private FileObject viewsDirectory;
-    private FileObject themesDirectory;
-    private FileObject messagesDirectory;
+    // @GuardedBy("directories")
+    private final Map<Directory, FileObject> directories = new EnumMap<>(Directory.class);
+    // @GuardedBy("directories")
+    private int modificationCount;
+    private final AtomicReference<YiiConfig> configSnapshot = new AtomicReference<>();
+    private final AtomicReference<PathAliasTrie<FileObject>> pathAliases = new AtomicReference<>();
+    private final AtomicReference<YiiRouteTable> routeTable = new AtomicReference<>();
     private static final Logger LOGGER = Logger.getLogger(YiiModuleImpl.class.getName());
+    private final YiiFileChangeSupport fileChangeSupport = new YiiFileChangeSupport();
+    private final YiiFileChangeSupport.Listener filesChangedListener = new FilesChangedListener();
+    // @GuardedBy("this")
+    private boolean isListening = false;
+    private final PreferenceChangeListener preferenceChangeListener = new PreferenceChangeListenerImpl();
+    private final PreferenceChangeListener weakPreferenceChangeListener;
+
+    private enum Directory {
+
+        WEBROOT,
+        SYSTEM,
+        ZII,
+        APPLICATION,
+        EXT,
+        CONTROLLERS,
+        VIEWS,
+        THEMES,
+        MESSAGES;
+
+        /**
+         * Get directories which are resolved from this directory.
+         *
+         * @return dependent directories
+         */
+        Set<Directory> getDependents() {
+            switch (this) {
+                case WEBROOT:
+                    return EnumSet.allOf(Directory.class);
+                case SYSTEM:
+                    return EnumSet.of(SYSTEM, ZII);
+                case APPLICATION:
+                    return EnumSet.of(APPLICATION, EXT, CONTROLLERS, VIEWS, MESSAGES);
+                default:
+                    return EnumSet.of(this);
+            }
+        }
+
+        static Directory forPreferenceKey(String key) {
+            if (key == null) {
+                return null;
+            }
+            switch (key) {
+                case YiiPreferences.SYSTEM_PATH:
+                    return SYSTEM;
+                case YiiPreferences.ZII_PATH:
+                    return ZII;
+                case YiiPreferences.APPLICATION_PATH:
+                    return APPLICATION;
+                case YiiPreferences.EXT_PATH:
+                    return EXT;
+                case YiiPreferences.CONTROLLERS_PATH:
+                    return CONTROLLERS;
+                case YiiPreferences.VIEWS_PATH:
+                    return VIEWS;
+                case YiiPreferences.THEMES_PATH:
+                    return THEMES;
+                case YiiPreferences.MESSAGES_PATH:
+                    return MESSAGES;
+                default:
+                    return null;
+            }
+        }
+    }
 
     public YiiModuleImpl(PhpModule phpModule) {
         this.phpModule = phpModule;
-        systemPath = getSystemPath();
-        initDirectories();
+        this.yiiIndex = YiiIndex.create(phpModule);
+        weakPreferenceChangeListener = YiiPreferences.addWeakPreferenceChangeListener(phpModule, preferenceChangeListener);
+        fileChangeSupport.addListener(filesChangedListener);
+        viewCache = new YiiViewCache(this);
+        fileChangeSupport.addListener(viewCache);
+        fileClassifier = new YiiFileClassifier(this);
+        fileChangeSupport.addListener(fileClassifier);
+        fileChangeSupport.addListener(pathAliasCache);
+        directoryIndex = new YiiDirectoryIndex(fileChangeSupport);
+        fileChangeSupport.addListener(directoryIndex);
+        propertyCatalog = new YiiPropertyCatalog(phpModule);
+        fileChangeSupport.addListener(propertyCatalog);
+        messageCatalog = new YiiMessageCatalog(this, phpModule);
+        fileChangeSupport.addListener(messageCatalog);
+        attributeCatalog = new YiiAttributeCatalog(yiiIndex);
+        fileChangeSupport.addListener(attributeCatalog);
     }
 
     private String getSystemPath() {
         index = getIndexFile();
         if (index != null) {
+            listen(index.getParent());
             List<String> includePath = YiiUtils.getIncludePath(index);
             for (String system : includePath) {
                 return system;
@@ -118,45 +226,44 @@ public class YiiModuleImpl extends YiiModule {
 
     @Override
     public FileObject getWebroot() {
-        return webrootDirectory;
+        return get(Directory.WEBROOT);
     }
 
-    private void setWebroot() {
+    private FileObject resolveWebroot() {
         PhpModuleProperties properties = phpModule.getLookup().lookup(PhpModuleProperties.Factory.class).getProperties();
         FileObject webRoot = properties.getWebRoot();
         if (webRoot != null) {
-            webrootDirectory = webRoot;
-            return;
+            return webRoot;
         }
-        webrootDirectory = phpModule.getSourceDirectory();
+        return phpModule.getSourceDirectory();
     }
 
     @Override
     public FileObject getSystem() {
-        return systemDirectory;
+        return get(Directory.SYSTEM);
     }
 
-    private void setSystem() {
+    private FileObject resolveSystem() {
         // from settings
         String path = YiiPreferences.getSystemPath(phpModule);
         if (!path.isEmpty()) {
-            systemDirectory = getDirectory(path);
+            FileObject systemDirectory = getDirectory(path);
             if (systemDirectory != null) {
-                return;
+                return systemDirectory;
             }
         }
 
         // default
         FileObject webroot = getWebroot();
         if (webroot == null) {
-            return;
+            return null;
         }
         if (systemPath == null) {
             // try again
             systemPath = getSystemPath();
         }
         if (systemPath == null) {
-            return;
+            return null;
         }
 
         FileObject system = webroot.getFileObject(systemPath);
@@ -164,178 +271,298 @@ public class YiiModuleImpl extends YiiModule {
         if (system == null) {
             // is path changed?
             systemPath = getSystemPath();
-            system = webroot.getFileObject(systemPath);
+            if (systemPath != null) {
+                system = webroot.getFileObject(systemPath);
+            }
         }
-        systemDirectory = system;
+        return system;
     }
 
     @Override
     public FileObject getZii() {
-        return ziiDirectory;
+        return get(Directory.ZII);
     }
 
-    private void setZii() {
+    private FileObject resolveZii() {
         // from settings
         String path = YiiPreferences.getZiiPath(phpModule);
         if (!path.isEmpty()) {
-            ziiDirectory = getDirectory(path);
+            FileObject ziiDirectory = getDirectory(path);
             if (ziiDirectory != null) {
-                return;
+                return ziiDirectory;
             }
         }
 
         // default
         FileObject system = getSystem();
         if (system != null) {
-            ziiDirectory = system.getFileObject(ZII);
+            return system.getFileObject(ZII);
         }
+        return null;
     }
 
     @Override
     public FileObject getApplication() {
-        return applicationDirectory;
+        return get(Directory.APPLICATION);
     }
 
-    private void setApplication() {
+    private FileObject resolveApplication() {
         // from settings
         String path = YiiPreferences.getApplicationPath(phpModule);
         if (!path.isEmpty()) {
-            applicationDirectory = getDirectory(path);
+            FileObject applicationDirectory = getDirectory(path);
             if (applicationDirectory != null) {
-                return;
+                return applicationDirectory;
             }
         }
 
         // default
-        applicationDirectory = getWebroot().getFileObject(APPLICATION);
+        FileObject webroot = getWebroot();
+        if (webroot != null) {
+            return webroot.getFileObject(APPLICATION);
+        }
+        return null;
     }
 
     @Override
     public FileObject getExt() {
-        return extDirectory;
+        return get(Directory.EXT);
     }
 
-    private void setExt() {
+    private FileObject resolveExt() {
         // from settings
         String path = YiiPreferences.getExtPath(phpModule);
         if (!path.isEmpty()) {
-            extDirectory = getDirectory(path);
+            FileObject extDirectory = getDirectory(path);
             if (extDirectory != null) {
-                return;
+                return extDirectory;
             }
         }
 
         // default
         FileObject application = getApplication();
         if (application != null) {
-            extDirectory = application.getFileObject(EXT);
+            return application.getFileObject(EXT);
         }
+        return null;
     }
 
     @Override
     public FileObject getControllers() {
-        return controllersDirectory;
+        return get(Directory.CONTROLLERS);
     }
 
-    private void setControllers() {
+    private FileObject resolveControllers() {
         // from settings
         String path = YiiPreferences.getControllersPath(phpModule);
         if (!path.isEmpty()) {
-            controllersDirectory = getDirectory(path);
+            FileObject controllersDirectory = getDirectory(path);
             if (controllersDirectory != null) {
-                return;
+                return controllersDirectory;
             }
         }
 
         // default
         FileObject application = getApplication();
         if (application != null) {
-            controllersDirectory = application.getFileObject("controllers"); // NOI18N
+            return application.getFileObject("controllers"); // NOI18N
         }
+        return null;
     }
 
     @Override
     public FileObject getViews() {
-        return viewsDirectory;
+        return get(Directory.VIEWS);
     }
 
-    private void setViews() {
+    private FileObject resolveViews() {
         // from settings
         String path = YiiPreferences.getViewsPath(phpModule);
         if (!path.isEmpty()) {
-            viewsDirectory = getDirectory(path);
+            FileObject viewsDirectory = getDirectory(path);
             if (viewsDirectory != null) {
-                return;
+                return viewsDirectory;
             }
         }
 
         // default
         FileObject application = getApplication();
         if (application != null) {
-            viewsDirectory = application.getFileObject("views"); // NOI18N
+            return application.getFileObject("views"); // NOI18N
         }
+        return null;
     }
 
     @Override
     public FileObject getThemes() {
-        return themesDirectory;
+        return get(Directory.THEMES);
     }
 
-    private void setThemes() {
+    private FileObject resolveThemes() {
         // from settings
         String path = YiiPreferences.getThemesPath(phpModule);
         if (!path.isEmpty()) {
-            themesDirectory = getDirectory(path);
+            FileObject themesDirectory = getDirectory(path);
             if (themesDirectory != null) {
-                return;
+                return themesDirectory;
             }
         }
 
         // default
         FileObject webroot = getWebroot();
         if (webroot != null) {
-            themesDirectory = webroot.getFileObject("themes"); // NOI18N
+            return webroot.getFileObject("themes"); // NOI18N
         }
+        return null;
     }
 
     @Override
     public FileObject getMessages() {
-        return messagesDirectory;
+        return get(Directory.MESSAGES);
     }
 
-    private void setMessages() {
+    private FileObject resolveMessages() {
         // from settings
         String path = YiiPreferences.getMessagesPath(phpModule);
         if (!path.isEmpty()) {
-            messagesDirectory = getDirectory(path);
+            FileObject messagesDirectory = getDirectory(path);
             if (messagesDirectory != null) {
-                return;
+                return messagesDirectory;
             }
         }
 
         // default
         FileObject application = getApplication();
         if (application != null) {
-            messagesDirectory = application.getFileObject("messages"); // NOI18N
+            return application.getFileObject("messages"); // NOI18N
         }
+        return null;
     }
 
     @Override
     public String getThemeName() {
-        if (themeName != null) {
-            return themeName;
+        return getConfig().getTheme();
+    }
+
+    @Override
+    public YiiViewCache getViewCache() {
+        return viewCache;
+    }
+
+    @Override
+    public PathAliasCache getPathAliasCache() {
+        return pathAliasCache;
+    }
+
+    @Override
+    public YiiDirectoryIndex getDirectoryIndex() {
+        return directoryIndex;
+    }
+
+    @Override
+    public YiiPropertyCatalog getPropertyCatalog() {
+        return propertyCatalog;
+    }
+
+    @Override
+    public YiiMessageCatalog getMessageCatalog() {
+        return messageCatalog;
+    }
+
+    @Override
+    public YiiAttributeCatalog getAttributeCatalog() {
+        return attributeCatalog;
+    }
+
+    @Override
+    public YiiFileClassifier getFileClassifier() {
+        return fileClassifier;
+    }
+
+    @Override
+    public PathAliasTrie<FileObject> getPathAliases() {
+        PathAliasTrie<FileObject> aliases = pathAliases.get();
+        if (aliases != null) {
+            return aliases;
         }
-        if (main == null) {
-            main = getMain();
+        // default aliases
+        Map<String, FileObject> directories = new LinkedHashMap<>();
+        for (PATH_ALIAS alias : PATH_ALIAS.values()) {
+            if (alias == PATH_ALIAS.NONE) {
+                continue;
+            }
+            FileObject directory = getDirectory(alias);
+            if (directory != null) {
+                directories.put(alias.getName(), directory);
+            }
         }
 
-        if (main == null) {
+        // custom aliases
+        Map<String, String> customAliases = new LinkedHashMap<>();
+        FileObject indexFile = getIndexFile();
+        if (indexFile != null) {
+            customAliases.putAll(YiiConfigParser.parseAliases(indexFile));
+        }
+        customAliases.putAll(getConfig().getAliases());
+        PathAliasTrie<FileObject> defaultAliases = new PathAliasTrie<>(directories);
+        for (Map.Entry<String, String> entry : customAliases.entrySet()) {
+            FileObject directory = toAliasDirectory(entry.getValue(), defaultAliases);
+            if (directory != null) {
+                directories.put(entry.getKey(), directory);
+            }
+        }
+        aliases = new PathAliasTrie<>(directories);
+        if (pathAliases.compareAndSet(null, aliases)) {
+            return aliases;
+        }
+        return pathAliases.get();
+    }
+
+    /**
+     * Get the directory for the path of an alias.
+     *
+     * @param path file path or path alias
+     * @param aliases known aliases
+     * @return directory if it exists, otherwise null
+     */
+    private FileObject toAliasDirectory(String path, PathAliasTrie<FileObject> aliases) {
+        if (path.contains("/") || path.contains("\\")) { // NOI18N
+            File file = new File(path);
+            if (!file.isAbsolute()) {
+                FileObject sourceDirectory = phpModule.getSourceDirectory();
+                if (sourceDirectory == null) {
+                    return null;
+                }
+                return sourceDirectory.getFileObject(path);
+            }
+            return FileUtil.toFileObject(FileUtil.normalizeFile(file));
+        }
+        PathAliasTrie.Match<FileObject> match = aliases.find(path);
+        if (match == null) {
             return null;
         }
+        StringBuilder sb = new StringBuilder();
+        for (String segment : match.getRest()) {
+            if (sb.length() > 0) {
+                sb.append("/"); // NOI18N
+            }
+            sb.append(segment);
+        }
+        return match.getValue().getFileObject(sb.toString());
+    }
 
-        // get theme
-        themeName = YiiUtils.getThemeName(main);
-        return themeName;
+    @Override
+    public YiiConfig getConfig() {
+        YiiConfig snapshot = configSnapshot.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        snapshot = YiiConfigParser.parse(getMain());
+        if (configSnapshot.compareAndSet(null, snapshot)) {
+            return snapshot;
+        }
+        // another thread has already set it
+        return configSnapshot.get();
     }
 
     /**
@@ -343,7 +570,7 @@ public class YiiModuleImpl extends YiiModule {
      *
      * @return main file if it exists, otherwise null
      */
-    private FileObject getMain() {
+    private synchronized FileObject getMain() {
         // get main.php
         if (main != null) {
             return main;
@@ -355,31 +582,299 @@ public class YiiModuleImpl extends YiiModule {
         if (main == null) {
             LOGGER.log(Level.INFO, "Not found main.php");
         } else {
-            main.addFileChangeListener(new FileChangeAdapter() {
-                @Override
-                public void fileChanged(FileEvent fe) {
-                    FileObject file = fe.getFile();
-                    if (file != null) {
-                        themeName = YiiUtils.getThemeName(main);
-                    }
-                }
-            });
+            listen(main.getParent());
         }
         return main;
     }
 
+    /**
+     * Forget main.php. It is looked up again on next access.
+     */
+    private synchronized void resetMain() {
+        main = null;
+        configSnapshot.set(null);
+        pathAliases.set(null);
+    }
+
+    /**
+     * Clear all cached directories. They are resolved again on next access.
+     */
     @Override
     public final void initDirectories() {
-        // don't change order!
-        setWebroot();
-        setSystem();
-        setApplication();
-        setZii();
-        setExt();
-        setControllers();
-        setViews();
-        setThemes();
-        setMessages();
+        invalidate(EnumSet.allOf(Directory.class));
+    }
+
+    @Override
+    public YiiIndex getIndex() {
+        return yiiIndex;
+    }
+
+    @Override
+    public YiiRouteTable getRouteTable() {
+        YiiRouteTable table = routeTable.get();
+        if (table != null) {
+            return table;
+        }
+        List<String> routes = new ArrayList<>();
+        // ignore controllers of the framework (e.g. gii) and extensions
+        String controllersPath = yiiIndex.getRelativePath(getControllers());
+        String applicationPath = yiiIndex.getRelativePath(getApplication());
+        for (IndexedController controller : yiiIndex.getControllers()) {
+            String moduleName = controller.getModuleName();
+            String expectedPath = moduleName.isEmpty()
+                    ? controllersPath
+                    : getModuleControllersPath(applicationPath, moduleName);
+            if (expectedPath == null || !expectedPath.equals(controller.getControllersPath())) {
+                continue;
+            }
+            String controllerRoute = controller.getNestedPath() + controller.getControllerId();
+            if (!moduleName.isEmpty()) {
+                routes.add(moduleName);
+                controllerRoute = moduleName + "/" + controllerRoute; // NOI18N
+            }
+            routes.add(controllerRoute);
+            for (String actionId : controller.getActionIds()) {
+                routes.add(controllerRoute + "/" + actionId); // NOI18N
+            }
+        }
+        table = new YiiRouteTable(routes);
+        if (IndexingManager.getDefault().isIndexing()) {
+            // the index may not contain changes yet
+            return table;
+        }
+        if (routeTable.compareAndSet(null, table)) {
+            return table;
+        }
+        return routeTable.get();
+    }
+
+    /**
+     * Get the path of the controllers directory of the module.
+     *
+     * @param applicationPath relative path of the application directory
+     * @param moduleName module name
+     * @return relative path e.g. protected/modules/admin/controllers
+     */
+    private static String getModuleControllersPath(String applicationPath, String moduleName) {
+        if (applicationPath == null) {
+            return null;
+        }
+        String path = String.format(MODULE_CONTROLLERS_PATH_FORMAT, moduleName);
+        return applicationPath.isEmpty() ? path : applicationPath + "/" + path; // NOI18N
+    }
+
+    @Override
+    public void addFilesChangedListener(YiiFileChangeSupport.Listener listener) {
+        fileChangeSupport.addListener(listener);
+    }
+
+    @Override
+    public void removeFilesChangedListener(YiiFileChangeSupport.Listener listener) {
+        fileChangeSupport.removeListener(listener);
+    }
+
+    @Override
+    protected void dispose() {
+        YiiPreferences.removePreferenceChangeListener(phpModule, weakPreferenceChangeListener);
+        fileChangeSupport.removeListener(filesChangedListener);
+        fileChangeSupport.removeListener(viewCache);
+        viewCache.clear();
+        fileChangeSupport.removeListener(fileClassifier);
+        fileChangeSupport.removeListener(pathAliasCache);
+        pathAliasCache.clear();
+        fileChangeSupport.removeListener(directoryIndex);
+        directoryIndex.clear();
+        fileChangeSupport.removeListener(propertyCatalog);
+        propertyCatalog.clear();
+        fileChangeSupport.removeListener(messageCatalog);
+        messageCatalog.clear();
+        fileChangeSupport.removeListener(attributeCatalog);
+        attributeCatalog.clear();
+        routeTable.set(null);
+        fileChangeSupport.removeAll();
+        resetMain();
+        synchronized (directories) {
+            directories.clear();
+        }
+    }
+
+    private FileObject get(Directory directory) {
+        startListening();
+        int count;
+        synchronized (directories) {
+            if (directories.containsKey(directory)) {
+                return directories.get(directory);
+            }
+            count = modificationCount;
+        }
+        // resolve outside the lock, it may parse the entry script
+        FileObject resolved = resolve(directory);
+        synchronized (directories) {
+            if (count != modificationCount) {
+                // invalidated while resolving, don't cache the stale result
+                return resolved;
+            }
+            directories.put(directory, resolved);
+        }
+        if (resolved != null) {
+            // e.g. system directory may be outside of the project
+            listen(resolved.getParent());
+            listen(resolved);
+        }
+        return resolved;
+    }
+
+    private FileObject resolve(Directory directory) {
+        switch (directory) {
+            case WEBROOT:
+                return resolveWebroot();
+            case SYSTEM:
+                return resolveSystem();
+            case ZII:
+                return resolveZii();
+            case APPLICATION:
+                return resolveApplication();
+            case EXT:
+                return resolveExt();
+            case CONTROLLERS:
+                return resolveControllers();
+            case VIEWS:
+                return resolveViews();
+            case THEMES:
+                return resolveThemes();
+            case MESSAGES:
+                return resolveMessages();
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    private void invalidate(Set<Directory> targets) {
+        synchronized (directories) {
+            for (Directory directory : targets) {
+                directories.remove(directory);
+            }
+            modificationCount++;
+        }
+        pathAliases.set(null);
+        fileClassifier.reset();
+        if (targets.contains(Directory.VIEWS)
+                || targets.contains(Directory.THEMES)
+                || targets.contains(Directory.CONTROLLERS)
+                || targets.contains(Directory.APPLICATION)) {
+            viewCache.clear();
+        }
+        if (targets.contains(Directory.CONTROLLERS)
+                || targets.contains(Directory.APPLICATION)) {
+            // routes are filtered by the controllers directories
+            routeTable.set(null);
+        }
+        if (targets.contains(Directory.MESSAGES)) {
+            messageCatalog.reset();
+        }
+        if (targets.contains(Directory.SYSTEM)) {
+            systemPath = null;
+        }
+        if (targets.contains(Directory.APPLICATION)) {
+            resetMain();
+        }
+    }
+
+    /**
+     * Invalidate cached entries which are affected by changed files.
+     *
+     * @param files changed files
+     */
+    private void filesChanged(Set<FileObject> files) {
+        boolean hasFolder = false;
+        boolean isIndexChanged = false;
+        boolean isConfigChanged = false;
+        boolean isControllerChanged = false;
+        for (FileObject file : files) {
+            if (file.isFolder() || !file.isValid()) {
+                hasFolder = true;
+            } else if (fileClassifier.classify(file).getRole() == YiiFileDescriptor.Role.CONTROLLER) {
+                isControllerChanged = true;
+            }
+            if (file.equals(index)) {
+                isIndexChanged = true;
+            }
+            if (isConfigFile(file)) {
+                isConfigChanged = true;
+            }
+        }
+        if (hasFolder || isControllerChanged) {
+            routeTable.set(null);
+        }
+        Set<Directory> targets = EnumSet.noneOf(Directory.class);
+        if (isIndexChanged) {
+            // include path of the entry script may be changed
+            targets.addAll(Directory.SYSTEM.getDependents());
+        }
+        if (hasFolder) {
+            synchronized (directories) {
+                for (Map.Entry<Directory, FileObject> entry : directories.entrySet()) {
+                    if (isAffected(entry.getValue(), files)) {
+                        targets.addAll(entry.getKey().getDependents());
+                    }
+                }
+            }
+        }
+        if (!targets.isEmpty()) {
+            invalidate(targets);
+        }
+        if (isConfigChanged && configSnapshot.get() != null) {
+            // replace the snapshot at once, readers never see a partial one
+            configSnapshot.set(YiiConfigParser.parse(getMain()));
+            pathAliases.set(null);
+        }
+    }
+
+    private boolean isConfigFile(FileObject file) {
+        if (file.equals(main)) {
+            return true;
+        }
+        YiiConfig snapshot = configSnapshot.get();
+        return snapshot != null && snapshot.getFiles().contains(file);
+    }
+
+    private static boolean isAffected(FileObject directory, Set<FileObject> files) {
+        if (directory == null) {
+            // the default directory may be created
+            for (FileObject file : files) {
+                if (file.isValid() && file.isFolder()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        if (!directory.isValid()) {
+            return true;
+        }
+        for (FileObject file : files) {
+            // renamed or moved
+            if (file.equals(directory) || FileUtil.isParentOf(file, directory)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void startListening() {
+        if (isListening) {
+            return;
+        }
+        isListening = true;
+        FileObject sourceDirectory = phpModule.getSourceDirectory();
+        if (sourceDirectory != null) {
+            fileChangeSupport.addRoot(sourceDirectory);
+        }
+    }
+
+    private void listen(FileObject folder) {
+        if (folder != null && folder.isFolder()) {
+            fileChangeSupport.addFolder(folder);
+        }
     }
 
     private FileObject getDirectory(String path) {
@@ -389,4 +884,24 @@ public class YiiModuleImpl extends YiiModule {
         }
         return null;
     }
+
+    //~ Inner classes
+    private class FilesChangedListener implements YiiFileChangeSupport.Listener {
+
+        @Override
+        public void filesChanged(Set<FileObject> files, boolean isStructural) {
+            YiiModuleImpl.this.filesChanged(files);
+        }
+    }
+
+    private class PreferenceChangeListenerImpl implements PreferenceChangeListener {
+
+        @Override
+        public void preferenceChange(PreferenceChangeEvent evt) {
+            Directory directory = Directory.forPreferenceKey(evt.getKey());
+            if (directory != null) {
+                invalidate(directory.getDependents());
+            }
+        }
+    }
 }
@@ -208,7 +208,15 @@ public class YiiPhpFrameworkProvider extends PhpFrameworkProvider {
         // autodetection
         if (!isInPhpModule(phpModule)) {
             RP.schedule(new YiiAutoDetectionTask(phpModule), 1, TimeUnit.MINUTES);
+            return;
         }
+        YiiWarmUpTask.schedule(phpModule);
+    }
+
+    @Override
+    public void phpModuleClosed(PhpModule phpModule) {
+        YiiWarmUpTask.cancel(phpModule);
+        YiiModuleFactory.remove(phpModule);
     }
 
     //~ Inner classes
@@ -250,6 +258,8 @@ public class YiiPhpFrameworkProvider extends PhpFrameworkProvider {
             @Override
             public void actionPerformed(ActionEvent e) {
                 YiiPreferences.setEnabled(phpModule, true);
+                YiiModuleFactory.create(phpModule).getIndex().refresh();
+                YiiWarmUpTask.schedule(phpModule);
                 phpModule.notifyPropertyChanged(new PropertyChangeEvent(this, PhpModule.PROPERTY_FRAMEWORKS, null, null));
                 notification.clear();
             }
@@ -176,6 +176,11 @@ public class YiiPhpModuleCustomizerExtender extends PhpModuleCustomizerExtender
         if (isEnabled != isEnabledForPanel) {
             YiiPreferences.setEnabled(phpModule, isEnabledForPanel);
             change = EnumSet.of(Change.FRAMEWORK_CHANGE);
+            if (isEnabledForPanel) {
+                // index project model
+                YiiModuleFactory.create(phpModule).getIndex().refresh();
+                YiiWarmUpTask.schedule(phpModule);
+            }
         }
 
         if (isEnabledForPanel) {
@@ -0,0 +1,214 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.nbphpcouncil.modules.php.yii.ui.actions.YiiGoToViewSupport;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * LRU cache of view files which are resolved from render methods of
+ * controllers. Entries are keyed by the controller, the view id, the theme
+ * and the fallback flag. Negative results are also cached.
+ *
+ * All entries are dropped when files of the views or themes trees (including
+ * views of modules) are created, deleted or renamed. Saving a view doesn't
+ * affect the resolution.
+ *
+ * @author junichi11
+ */
+public final class YiiViewCache implements YiiFileChangeSupport.Listener {
+
+    static final int MAX_SIZE = 1024;
+    private static final String VIEWS = "views"; // NOI18N
+    private final YiiModule yiiModule;
+    // @GuardedBy("this")
+    private final Map<Key, Entry> cache = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+    // @GuardedBy("this")
+    private int modificationCount;
+
+    public YiiViewCache(YiiModule yiiModule) {
+        this.yiiModule = yiiModule;
+    }
+
+    /**
+     * Get the view file of the render method.
+     *
+     * @param controller controller file
+     * @param viewId view id e.g. index, sub/index, /site/index, //site/index
+     * @param themeName current theme name
+     * @param isFallback true if the default views are used when the theme
+     * doesn't have the view
+     * @return view file if it exists, otherwise null
+     */
+    public FileObject getView(FileObject controller, String viewId, String themeName, boolean isFallback) {
+        Key key = new Key(controller, viewId, themeName, isFallback);
+        int count;
+        synchronized (this) {
+            Entry entry = cache.get(key);
+            if (entry != null) {
+                if (entry.view == null || entry.view.isValid()) {
+                    return entry.view;
+                }
+                cache.remove(key);
+            }
+            count = modificationCount;
+        }
+        FileObject view = YiiGoToViewSupport.create(controller, viewId, themeName, isFallback).getView();
+        synchronized (this) {
+            if (count == modificationCount) {
+                cache.put(key, new Entry(view));
+            }
+        }
+        return view;
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        modificationCount++;
+    }
+
+    synchronized int size() {
+        return cache.size();
+    }
+
+    @Override
+    public void filesChanged(Set<FileObject> files, boolean isStructural) {
+        if (!isStructural) {
+            return;
+        }
+        for (FileObject file : files) {
+            if (isInViewTree(file)) {
+                clear();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Check whether the file is in the views or themes trees or contains
+     * them.
+     *
+     * @param file changed file
+     * @return true if view files may be changed, otherwise false
+     */
+    private boolean isInViewTree(FileObject file) {
+        for (FileObject root : new FileObject[]{yiiModule.getViews(), yiiModule.getThemes()}) {
+            if (root != null
+                    && (root.equals(file)
+                    || FileUtil.isParentOf(root, file)
+                    || FileUtil.isParentOf(file, root))) {
+                return true;
+            }
+        }
+        // views of modules e.g. modules/admin/views/default/index.php
+        FileObject parent = file;
+        while (parent != null) {
+            if (VIEWS.equals(parent.getNameExt())) {
+                return true;
+            }
+            parent = parent.getParent();
+        }
+        return file.isFolder() && file.getFileObject(VIEWS) != null;
+    }
+
+    //~ Inner classes
+    private static final class Key {
+
+        private final FileObject controller;
+        private final String viewId;
+        private final String themeName;
+        private final boolean isFallback;
+
+        public Key(FileObject controller, String viewId, String themeName, boolean isFallback) {
+            this.controller = controller;
+            this.viewId = viewId;
+            this.themeName = themeName;
+            this.isFallback = isFallback;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 31 * hash + controller.hashCode();
+            hash = 31 * hash + viewId.hashCode();
+            hash = 31 * hash + Objects.hashCode(themeName);
+            hash = 31 * hash + (isFallback ? 1 : 0);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return controller.equals(other.controller)
+                    && viewId.equals(other.viewId)
+                    && Objects.equals(themeName, other.themeName)
+                    && isFallback == other.isFallback;
+        }
+    }
+
+    private static final class Entry {
+
+        private final FileObject view;
+
+        public Entry(FileObject view) {
+            this.view = view;
+        }
+    }
+}
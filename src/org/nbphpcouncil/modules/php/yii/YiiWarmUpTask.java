@@ -0,0 +1,257 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.nbphpcouncil.modules.php.yii.util.PathAliasTrie;
+import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.progress.ProgressHandleFactory;
+import org.netbeans.modules.parsing.api.indexing.IndexingManager;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.openide.filesystems.FileObject;
+import org.openide.util.Cancellable;
+import org.openide.util.NbBundle;
+import org.openide.util.RequestProcessor;
+
+/**
+ * Fill caches of YiiModule in the background when a Yii project is opened.
+ * It waits while the IDE is scanning.
+ *
+ * @author junichi11
+ */
+public final class YiiWarmUpTask implements Runnable, Cancellable {
+
+    private static final RequestProcessor RP = new RequestProcessor(YiiWarmUpTask.class.getName(), 1, true);
+    private static final int INITIAL_DELAY = 3000; // ms
+    private static final int BACKOFF_DELAY = 5000; // ms
+    private static final Logger LOGGER = Logger.getLogger(YiiWarmUpTask.class.getName());
+    // @GuardedBy("TASKS")
+    private static final Map<PhpModule, YiiWarmUpTask> TASKS = new WeakHashMap<>();
+    // weak, the task is the value of TASKS
+    private final Reference<PhpModule> phpModule;
+    private final RequestProcessor.Task task;
+    private volatile boolean isCancelled = false;
+    // accessed only in RP
+    private int step = 0;
+
+    private enum Step {
+
+        DIRECTORIES,
+        CONFIG,
+        THEME,
+        PATH_ALIASES,
+        CONTROLLERS,
+        WIDGETS,
+        MESSAGES
+    }
+
+    private YiiWarmUpTask(PhpModule phpModule) {
+        this.phpModule = new WeakReference<>(phpModule);
+        this.task = RP.create(this);
+        this.task.setPriority(Thread.MIN_PRIORITY);
+    }
+
+    /**
+     * Schedule the warm-up task. The previous task for the same PhpModule is
+     * cancelled.
+     *
+     * @param phpModule PhpModule
+     */
+    public static void schedule(PhpModule phpModule) {
+        YiiWarmUpTask warmUpTask = new YiiWarmUpTask(phpModule);
+        YiiWarmUpTask previous;
+        synchronized (TASKS) {
+            previous = TASKS.put(phpModule, warmUpTask);
+        }
+        if (previous != null) {
+            previous.cancel();
+        }
+        warmUpTask.task.schedule(INITIAL_DELAY);
+    }
+
+    /**
+     * Cancel the warm-up task. Use when the project is closed.
+     *
+     * @param phpModule PhpModule
+     */
+    public static void cancel(PhpModule phpModule) {
+        YiiWarmUpTask warmUpTask;
+        synchronized (TASKS) {
+            warmUpTask = TASKS.remove(phpModule);
+        }
+        if (warmUpTask != null) {
+            warmUpTask.cancel();
+        }
+    }
+
+    @NbBundle.Messages({
+        "# {0} - project name",
+        "YiiWarmUpTask.progress=Preparing Yii project: {0}",
+        "YiiWarmUpTask.step.DIRECTORIES=directories",
+        "YiiWarmUpTask.step.CONFIG=config",
+        "YiiWarmUpTask.step.THEME=theme",
+        "YiiWarmUpTask.step.PATH_ALIASES=path aliases",
+        "YiiWarmUpTask.step.CONTROLLERS=controllers",
+        "YiiWarmUpTask.step.WIDGETS=widgets",
+        "YiiWarmUpTask.step.MESSAGES=messages"
+    })
+    @Override
+    public void run() {
+        PhpModule phpModule = this.phpModule.get();
+        if (isCancelled || phpModule == null) {
+            // the project is already closed
+            return;
+        }
+        if (IndexingManager.getDefault().isIndexing()) {
+            // don't compete with scanning
+            task.schedule(BACKOFF_DELAY);
+            return;
+        }
+        Step[] steps = Step.values();
+        ProgressHandle handle = ProgressHandleFactory.createHandle(Bundle.YiiWarmUpTask_progress(phpModule.getDisplayName()), this);
+        handle.start(steps.length);
+        handle.progress(step);
+        try {
+            YiiModule yiiModule = YiiModuleFactory.create(phpModule);
+            while (step < steps.length) {
+                if (isCancelled || Thread.interrupted()) {
+                    return;
+                }
+                if (IndexingManager.getDefault().isIndexing()) {
+                    // resume from this step later
+                    task.schedule(BACKOFF_DELAY);
+                    return;
+                }
+                Step current = steps[step];
+                handle.progress(getDisplayName(current), step);
+                run(yiiModule, current);
+                step++;
+            }
+            synchronized (TASKS) {
+                if (TASKS.get(phpModule) == this) {
+                    TASKS.remove(phpModule);
+                }
+            }
+        } catch (RuntimeException ex) {
+            LOGGER.log(Level.INFO, "Yii warm-up is stopped.", ex); // NOI18N
+        } finally {
+            handle.finish();
+        }
+    }
+
+    private static void run(YiiModule yiiModule, Step step) {
+        switch (step) {
+            case DIRECTORIES:
+                yiiModule.getWebroot();
+                yiiModule.getSystem();
+                yiiModule.getZii();
+                yiiModule.getApplication();
+                yiiModule.getExt();
+                yiiModule.getControllers();
+                yiiModule.getViews();
+                yiiModule.getThemes();
+                yiiModule.getMessages();
+                break;
+            case CONFIG:
+                yiiModule.getConfig();
+                break;
+            case THEME:
+                yiiModule.getThemeName();
+                break;
+            case PATH_ALIASES:
+                PathAliasTrie<FileObject> pathAliases = yiiModule.getPathAliases();
+                List<FileObject> directories = new ArrayList<>();
+                for (String alias : pathAliases.getAliases("")) { // NOI18N
+                    directories.add(pathAliases.get(alias));
+                }
+                directories.add(yiiModule.getViews());
+                yiiModule.getDirectoryIndex().prepare(directories);
+                break;
+            case CONTROLLERS:
+                yiiModule.getRouteTable();
+                break;
+            case WIDGETS:
+                yiiModule.getPropertyCatalog().prepare(yiiModule.getIndex().getWidgetClassNames());
+                break;
+            case MESSAGES:
+                yiiModule.getMessageCatalog().prepare();
+                break;
+            default:
+                throw new AssertionError(step.name());
+        }
+    }
+
+    private static String getDisplayName(Step step) {
+        switch (step) {
+            case DIRECTORIES:
+                return Bundle.YiiWarmUpTask_step_DIRECTORIES();
+            case CONFIG:
+                return Bundle.YiiWarmUpTask_step_CONFIG();
+            case THEME:
+                return Bundle.YiiWarmUpTask_step_THEME();
+            case PATH_ALIASES:
+                return Bundle.YiiWarmUpTask_step_PATH_ALIASES();
+            case CONTROLLERS:
+                return Bundle.YiiWarmUpTask_step_CONTROLLERS();
+            case WIDGETS:
+                return Bundle.YiiWarmUpTask_step_WIDGETS();
+            case MESSAGES:
+                return Bundle.YiiWarmUpTask_step_MESSAGES();
+            default:
+                throw new AssertionError(step.name());
+        }
+    }
+
+    @Override
+    public boolean cancel() {
+        isCancelled = true;
+        task.cancel();
+        return true;
+    }
+}
@@ -54,6 +54,8 @@ import java.util.Collections;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -205,47 +207,70 @@ public class YiiScript {
         }
 
         // get application commands
+        // use the index if possible, parsing each file is expensive
+        Map<String, List<String>> indexedCommands = Collections.emptyMap();
         FileObject appCommandsDirectory = yiiModule.getFileObject(PATH_ALIAS.APPLICATION, "commands"); // NOI18N
         if (appCommandsDirectory != null) {
-            addCommands(appCommandsDirectory, commandFiles);
+            indexedCommands = yiiModule.getIndex().getCommands(appCommandsDirectory);
+            if (indexedCommands.isEmpty()) {
+                addCommands(appCommandsDirectory, commandFiles);
+            }
         }
 
         // sort
-        YiiUtils.sort(commandFiles);
+        Map<String, List<String>> allCommands = new TreeMap<>(indexedCommands);
         EditorSupport editorSupport = Lookup.getDefault().lookup(EditorSupport.class);
         for (FileObject commandFile : commandFiles) {
-            // add command
             String commandName = commandFile.getName().replace(COMMAND_SUFFIX, "").toLowerCase(); // NOI18N
+            allCommands.put(commandName, getSubCommands(editorSupport, commandFile));
+        }
+
+        for (Map.Entry<String, List<String>> entry : allCommands.entrySet()) {
+            // add command
+            String commandName = entry.getKey();
             commands.add(new YiiFrameworkCommand(phpModule, commandName, commandName, commandName));
 
             // add sub commands
-            Collection<PhpClass> phpClasses = editorSupport.getClasses(commandFile);
-            for (PhpClass phpClass : phpClasses) {
-                Collection<PhpClass.Method> methods = phpClass.getMethods();
-                PhpClass.Method[] methodArray = methods.toArray(new PhpClass.Method[]{});
-                Arrays.sort(methodArray, new Comparator<PhpClass.Method>() {
-                    @Override
-                    public int compare(PhpClass.Method m1, PhpClass.Method m2) {
-                        return m1.getName().compareToIgnoreCase(m2.getName());
-                    }
-                });
-                for (PhpClass.Method method : methodArray) {
-                    String methodName = method.getName();
-                    if (!methodName.startsWith(SUBCOMMAND_PREFIX)) {
-                        continue;
-                    }
-                    String subCommand = methodName.replace(SUBCOMMAND_PREFIX, "").toLowerCase(); // NOI18N
-                    String fullCommand = commandName + " " + subCommand; // NOI18N
-                    commands.add(new YiiFrameworkCommand(phpModule, new String[]{commandName, subCommand}, fullCommand, fullCommand));
-                }
-                break;
+            for (String subCommand : entry.getValue()) {
+                String fullCommand = commandName + " " + subCommand; // NOI18N
+                commands.add(new YiiFrameworkCommand(phpModule, new String[]{commandName, subCommand}, fullCommand, fullCommand));
             }
-
         }
 
         return commands;
     }
 
+    /**
+     * Get sub commands of command file.
+     *
+     * @param editorSupport
+     * @param commandFile
+     * @return sorted sub command names
+     */
+    private List<String> getSubCommands(EditorSupport editorSupport, FileObject commandFile) {
+        List<String> subCommands = new ArrayList<>();
+        Collection<PhpClass> phpClasses = editorSupport.getClasses(commandFile);
+        for (PhpClass phpClass : phpClasses) {
+            Collection<PhpClass.Method> methods = phpClass.getMethods();
+            PhpClass.Method[] methodArray = methods.toArray(new PhpClass.Method[]{});
+            Arrays.sort(methodArray, new Comparator<PhpClass.Method>() {
+                @Override
+                public int compare(PhpClass.Method m1, PhpClass.Method m2) {
+                    return m1.getName().compareToIgnoreCase(m2.getName());
+                }
+            });
+            for (PhpClass.Method method : methodArray) {
+                String methodName = method.getName();
+                if (!methodName.startsWith(SUBCOMMAND_PREFIX)) {
+                    continue;
+                }
+                subCommands.add(methodName.replace(SUBCOMMAND_PREFIX, "").toLowerCase()); // NOI18N
+            }
+            break;
+        }
+        return subCommands;
+    }
+
     /**
      * Add command files of commands directory to list.
      *
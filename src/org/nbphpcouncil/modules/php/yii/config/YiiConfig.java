@@ -0,0 +1,244 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Immutable snapshot of the application config (protected/config/main.php).
+ *
+ * @author junichi11
+ * @see YiiConfigParser
+ */
+public final class YiiConfig {
+
+    public static final YiiConfig EMPTY = new YiiConfig(Collections.<String, Object>emptyMap(), Collections.<FileObject>emptySet(), Collections.<String, String>emptyMap());
+    private static final String DEFAULT_CONTROLLER = "site"; // NOI18N
+    private final String theme;
+    private final String defaultController;
+    private final Map<String, String> components;
+    private final List<String> imports;
+    private final List<String> modules;
+    private final Map<String, String> aliases;
+    private final Map<String, String> urlRules;
+    private final Map<String, String> params;
+    private final Set<FileObject> files;
+
+    YiiConfig(Map<String, Object> config, Set<FileObject> files, Map<String, String> definedAliases) {
+        this.theme = getString(config, "theme"); // NOI18N
+        String controller = getString(config, "defaultController"); // NOI18N
+        this.defaultController = controller.isEmpty() ? DEFAULT_CONTROLLER : controller;
+        this.components = createComponents(getArray(config, "components")); // NOI18N
+        this.imports = createStrings(getArray(config, "import")); // NOI18N
+        this.modules = createModules(getArray(config, "modules")); // NOI18N
+        this.aliases = createAliases(getArray(config, "aliases"), definedAliases); // NOI18N
+        this.urlRules = createStringMap(getArray(getArray(getArray(config, "components"), "urlManager"), "rules")); // NOI18N
+        this.params = createStringMap(getArray(config, "params")); // NOI18N
+        this.files = Collections.unmodifiableSet(new LinkedHashSet<>(files));
+    }
+
+    /**
+     * Get theme name.
+     *
+     * @return theme name, empty string if it is not set
+     */
+    public String getTheme() {
+        return theme;
+    }
+
+    /**
+     * Get default controller id.
+     *
+     * @return default controller id, "site" if it is not set
+     */
+    public String getDefaultController() {
+        return defaultController;
+    }
+
+    /**
+     * Get application components.
+     *
+     * @return component id and class, empty string if class is not set
+     */
+    public Map<String, String> getComponents() {
+        return components;
+    }
+
+    /**
+     * Get import path aliases. e.g. application.models.*
+     *
+     * @return path aliases
+     */
+    public List<String> getImports() {
+        return imports;
+    }
+
+    /**
+     * Get module ids.
+     *
+     * @return module ids
+     */
+    public List<String> getModules() {
+        return modules;
+    }
+
+    /**
+     * Get aliases of the "aliases" property and Yii::setPathOfAlias() in the
+     * config files.
+     *
+     * @return alias name and path (file path or path alias)
+     */
+    public Map<String, String> getAliases() {
+        return aliases;
+    }
+
+    /**
+     * Get rules of urlManager component.
+     *
+     * @return pattern and route
+     */
+    public Map<String, String> getUrlRules() {
+        return urlRules;
+    }
+
+    /**
+     * Get params. Values which are not string are empty strings.
+     *
+     * @return key and value
+     */
+    public Map<String, String> getParams() {
+        return params;
+    }
+
+    /**
+     * Get config files which are used for this snapshot. i.e. main.php and
+     * required files.
+     *
+     * @return config files
+     */
+    public Set<FileObject> getFiles() {
+        return files;
+    }
+
+    private static String getString(Map<String, Object> array, String key) {
+        Object value = array.get(key);
+        if (value instanceof String) {
+            return (String) value;
+        }
+        return ""; // NOI18N
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> getArray(Map<String, Object> array, String key) {
+        Object value = array.get(key);
+        if (value instanceof Map) {
+            return (Map<String, Object>) value;
+        }
+        return Collections.emptyMap();
+    }
+
+    private static Map<String, String> createComponents(Map<String, Object> array) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (String id : array.keySet()) {
+            map.put(id, getString(getArray(array, id), "class")); // NOI18N
+        }
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static List<String> createStrings(Map<String, Object> array) {
+        List<String> list = new ArrayList<>();
+        for (Object value : array.values()) {
+            if (value instanceof String) {
+                list.add((String) value);
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    private static List<String> createModules(Map<String, Object> array) {
+        // 'gii' => array(...) or 'gii'
+        List<String> list = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : array.entrySet()) {
+            Object value = entry.getValue();
+            if (YiiConfigParser.isIndex(entry.getKey())) {
+                if (value instanceof String) {
+                    list.add((String) value);
+                }
+            } else {
+                list.add(entry.getKey());
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    private static Map<String, String> createAliases(Map<String, Object> array, Map<String, String> definedAliases) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : array.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof String) {
+                map.put(entry.getKey(), (String) value);
+            }
+        }
+        map.putAll(definedAliases);
+        return Collections.unmodifiableMap(map);
+    }
+
+    private static Map<String, String> createStringMap(Map<String, Object> array) {
+        Map<String, String> map = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> entry : array.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof String) {
+                map.put(entry.getKey(), (String) value);
+            } else {
+                map.put(entry.getKey(), ""); // NOI18N
+            }
+        }
+        return Collections.unmodifiableMap(map);
+    }
+}
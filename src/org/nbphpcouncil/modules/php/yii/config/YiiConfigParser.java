@@ -0,0 +1,483 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.config;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.nbphpcouncil.modules.php.yii.util.YiiCodeUtils;
+import org.netbeans.modules.csl.spi.ParserResult;
+import org.netbeans.modules.parsing.api.ParserManager;
+import org.netbeans.modules.parsing.api.ResultIterator;
+import org.netbeans.modules.parsing.api.Source;
+import org.netbeans.modules.parsing.api.UserTask;
+import org.netbeans.modules.parsing.spi.ParseException;
+import org.netbeans.modules.php.editor.CodeUtils;
+import org.netbeans.modules.php.editor.parser.api.Utils;
+import org.netbeans.modules.php.editor.parser.astnodes.ArrayCreation;
+import org.netbeans.modules.php.editor.parser.astnodes.ArrayElement;
+import org.netbeans.modules.php.editor.parser.astnodes.Expression;
+import org.netbeans.modules.php.editor.parser.astnodes.FunctionInvocation;
+import org.netbeans.modules.php.editor.parser.astnodes.Include;
+import org.netbeans.modules.php.editor.parser.astnodes.InfixExpression;
+import org.netbeans.modules.php.editor.parser.astnodes.NamespaceName;
+import org.netbeans.modules.php.editor.parser.astnodes.Program;
+import org.netbeans.modules.php.editor.parser.astnodes.ReturnStatement;
+import org.netbeans.modules.php.editor.parser.astnodes.Scalar;
+import org.netbeans.modules.php.editor.parser.astnodes.Statement;
+import org.netbeans.modules.php.editor.parser.astnodes.StaticMethodInvocation;
+import org.netbeans.modules.php.editor.parser.astnodes.visitors.DefaultVisitor;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Parse the application config into {@link YiiConfig}. Follows
+ * {@code require} and {@code CMap::mergeArray()}.
+ *
+ * @author junichi11
+ */
+public final class YiiConfigParser {
+
+    private static final int MAX_DEPTH = 10;
+    private static final Logger LOGGER = Logger.getLogger(YiiConfigParser.class.getName());
+    // all parsed files, used for invalidation
+    private final Set<FileObject> files = new LinkedHashSet<>();
+    // files of the current require chain
+    private final Set<FileObject> requiring = new HashSet<>();
+    private final Map<String, String> aliases = new LinkedHashMap<>();
+
+    private YiiConfigParser() {
+    }
+
+    /**
+     * Parse the config file.
+     *
+     * @param main config file e.g. main.php
+     * @return config snapshot
+     */
+    public static YiiConfig parse(FileObject main) {
+        if (main == null || !main.isValid()) {
+            return YiiConfig.EMPTY;
+        }
+        YiiConfigParser parser = new YiiConfigParser();
+        Object value = parser.resolve(new Required(main), 0);
+        if (value instanceof Map) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> config = (Map<String, Object>) value;
+            return new YiiConfig(config, parser.files, parser.aliases);
+        }
+        return new YiiConfig(Collections.<String, Object>emptyMap(), parser.files, parser.aliases);
+    }
+
+    /**
+     * Get aliases which are defined with Yii::setPathOfAlias(). e.g. in the
+     * entry script (index.php)
+     *
+     * @param file php file
+     * @return alias name and absolute path
+     */
+    public static Map<String, String> parseAliases(FileObject file) {
+        if (file == null || !file.isValid()) {
+            return Collections.emptyMap();
+        }
+        YiiConfigParser parser = new YiiConfigParser();
+        parser.parseFile(file);
+        return parser.aliases;
+    }
+
+    /**
+     * Merge arrays like CMap::mergeArray(). Integer keys are appended, arrays
+     * of the same string key are merged recursively, otherwise overwritten.
+     *
+     * @param a array
+     * @param b array
+     * @return merged array
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> mergeArray(Map<String, Object> a, Map<String, Object> b) {
+        Map<String, Object> merged = new LinkedHashMap<>(a);
+        int index = getNextIndex(merged);
+        for (Map.Entry<String, Object> entry : b.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (isIndex(key)) {
+                merged.put(String.valueOf(index++), value);
+            } else if (value instanceof Map && merged.get(key) instanceof Map) {
+                merged.put(key, mergeArray((Map<String, Object>) merged.get(key), (Map<String, Object>) value));
+            } else {
+                merged.put(key, value);
+            }
+        }
+        return merged;
+    }
+
+    static boolean isIndex(String key) {
+        if (key.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (!Character.isDigit(key.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int getNextIndex(Map<String, Object> array) {
+        int next = 0;
+        for (String key : array.keySet()) {
+            if (isIndex(key)) {
+                try {
+                    next = Math.max(next, Integer.parseInt(key) + 1);
+                } catch (NumberFormatException ex) {
+                    // too large
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Replace required files and CMap::mergeArray() with arrays.
+     */
+    @SuppressWarnings("unchecked")
+    private Object resolve(Object value, int depth) {
+        if (depth > MAX_DEPTH) {
+            return null;
+        }
+        if (value instanceof Required) {
+            FileObject file = ((Required) value).getFile();
+            if (file == null || !requiring.add(file)) {
+                // not found or circular
+                return null;
+            }
+            // the same file may be required more than once e.g. params.php
+            files.add(file);
+            try {
+                return resolve(parseFile(file), depth + 1);
+            } finally {
+                requiring.remove(file);
+            }
+        }
+        if (value instanceof Merged) {
+            Map<String, Object> merged = new LinkedHashMap<>();
+            for (Object argument : ((Merged) value).getArguments()) {
+                Object resolved = resolve(argument, depth + 1);
+                if (resolved instanceof Map) {
+                    merged = mergeArray(merged, (Map<String, Object>) resolved);
+                }
+            }
+            return merged;
+        }
+        if (value instanceof Map) {
+            Map<String, Object> array = new LinkedHashMap<>();
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                array.put(entry.getKey(), resolve(entry.getValue(), depth + 1));
+            }
+            return array;
+        }
+        return value;
+    }
+
+    /**
+     * Get the returned value of the file.
+     *
+     * @param file php file
+     * @return array, string, {@link Required}, {@link Merged} or null
+     */
+    private Object parseFile(final FileObject file) {
+        final List<Object> values = new ArrayList<>(1);
+        try {
+            ParserManager.parse(Collections.singleton(Source.create(file)), new UserTask() {
+                @Override
+                public void run(ResultIterator resultIterator) throws Exception {
+                    if (resultIterator == null) {
+                        return;
+                    }
+                    ParserResult parserResult = (ParserResult) resultIterator.getParserResult();
+                    Program program = Utils.getRoot(parserResult);
+                    if (program == null) {
+                        return;
+                    }
+                    new AliasVisitor(file).scan(program);
+                    for (Statement statement : program.getStatements()) {
+                        if (statement instanceof ReturnStatement) {
+                            values.add(evaluate(((ReturnStatement) statement).getExpression(), file));
+                            return;
+                        }
+                    }
+                }
+            });
+        } catch (ParseException ex) {
+            LOGGER.log(Level.WARNING, null, ex);
+        }
+        return values.isEmpty() ? null : values.get(0);
+    }
+
+    private static Object evaluate(Expression expression, FileObject file) {
+        if (expression instanceof ArrayCreation) {
+            Map<String, Object> array = new LinkedHashMap<>();
+            int index = 0;
+            for (ArrayElement element : ((ArrayCreation) expression).getElements()) {
+                String key;
+                if (element.getKey() == null) {
+                    key = String.valueOf(index++);
+                } else {
+                    Object keyValue = evaluate(element.getKey(), file);
+                    if (!(keyValue instanceof String)) {
+                        continue;
+                    }
+                    key = (String) keyValue;
+                }
+                array.put(key, evaluate(element.getValue(), file));
+            }
+            return array;
+        }
+        if (expression instanceof Scalar) {
+            Scalar scalar = (Scalar) expression;
+            switch (scalar.getScalarType()) {
+                case STRING:
+                    return YiiCodeUtils.getStringValue(scalar);
+                case INT: // no break
+                case REAL:
+                    return scalar.getStringValue();
+                case SYSTEM:
+                    return getMagicConstant(scalar.getStringValue(), file);
+                default:
+                    return null;
+            }
+        }
+        if (expression instanceof Include) {
+            Object path = evaluate(((Include) expression).getExpression(), file);
+            if (path instanceof String) {
+                return new Required(toFileObject((String) path, file));
+            }
+            return null;
+        }
+        if (expression instanceof StaticMethodInvocation) {
+            StaticMethodInvocation invocation = (StaticMethodInvocation) expression;
+            String className = CodeUtils.extractQualifiedName(invocation.getClassName());
+            String methodName = CodeUtils.extractFunctionName(invocation.getMethod());
+            if ("mergeArray".equals(methodName) && className != null && className.endsWith("CMap")) { // NOI18N
+                List<Object> arguments = new ArrayList<>();
+                for (Expression parameter : invocation.getMethod().getParameters()) {
+                    arguments.add(evaluate(parameter, file));
+                }
+                return new Merged(arguments);
+            }
+            return null;
+        }
+        if (expression instanceof InfixExpression) {
+            InfixExpression infix = (InfixExpression) expression;
+            if (infix.getOperator() == InfixExpression.OperatorType.CONCAT) {
+                Object left = evaluate(infix.getLeft(), file);
+                Object right = evaluate(infix.getRight(), file);
+                if (left instanceof String && right instanceof String) {
+                    return (String) left + (String) right;
+                }
+            }
+            return null;
+        }
+        if (expression instanceof FunctionInvocation) {
+            FunctionInvocation invocation = (FunctionInvocation) expression;
+            List<Expression> parameters = invocation.getParameters();
+            String functionName = CodeUtils.extractFunctionName(invocation);
+            if (parameters.size() != 1) {
+                return null;
+            }
+            if ("dirname".equals(functionName)) { // NOI18N
+                Object path = evaluate(parameters.get(0), file);
+                if (path instanceof String) {
+                    return dirname((String) path);
+                }
+            } else if ("realpath".equals(functionName)) { // NOI18N
+                // e.g. realpath(__DIR__ . '/../extensions/bootstrap')
+                Object path = evaluate(parameters.get(0), file);
+                if (path instanceof String) {
+                    return realpath((String) path, file);
+                }
+            }
+            return null;
+        }
+        if (expression instanceof NamespaceName) {
+            if ("DIRECTORY_SEPARATOR".equals(CodeUtils.extractQualifiedName(expression))) { // NOI18N
+                return "/"; // NOI18N
+            }
+        }
+        return null;
+    }
+
+    private static boolean isYiiClass(StaticMethodInvocation invocation) {
+        String className = CodeUtils.extractQualifiedName(invocation.getClassName());
+        return className != null && (className.endsWith("Yii") || className.endsWith("YiiBase")); // NOI18N
+    }
+
+    private static String getMagicConstant(String name, FileObject file) {
+        File path = FileUtil.toFile(file);
+        if (path == null) {
+            return null;
+        }
+        switch (name) {
+            case "__FILE__": // NOI18N
+                return path.getAbsolutePath();
+            case "__DIR__": // NOI18N
+                return path.getParent();
+            default:
+                return null;
+        }
+    }
+
+    private static String dirname(String path) {
+        int index = Math.max(path.lastIndexOf('/'), path.lastIndexOf('\\'));
+        if (index <= 0) {
+            return "."; // NOI18N
+        }
+        return path.substring(0, index);
+    }
+
+    /**
+     * Normalize the path like realpath(). The path is returned even if it
+     * doesn't exist.
+     */
+    private static String realpath(String path, FileObject file) {
+        File target = toFile(path, file);
+        return target == null ? null : target.getPath();
+    }
+
+    private static FileObject toFileObject(String path, FileObject file) {
+        File target = toFile(path, file);
+        if (target == null) {
+            return null;
+        }
+        return FileUtil.toFileObject(target);
+    }
+
+    /**
+     * Get a normalized file. Relative path is resolved from the directory of
+     * the php file.
+     */
+    private static File toFile(String path, FileObject file) {
+        File target = new File(path);
+        if (!target.isAbsolute()) {
+            File current = FileUtil.toFile(file);
+            if (current == null) {
+                return null;
+            }
+            target = new File(current.getParentFile(), path);
+        }
+        return FileUtil.normalizeFile(target);
+    }
+
+    //~ Inner classes
+    /**
+     * Collect Yii::setPathOfAlias('alias', path).
+     */
+    private final class AliasVisitor extends DefaultVisitor {
+
+        private final FileObject file;
+
+        public AliasVisitor(FileObject file) {
+            this.file = file;
+        }
+
+        @Override
+        public void visit(StaticMethodInvocation node) {
+            super.visit(node);
+            if (!isYiiClass(node)
+                    || !"setPathOfAlias".equals(CodeUtils.extractFunctionName(node.getMethod()))) { // NOI18N
+                return;
+            }
+            List<Expression> parameters = node.getMethod().getParameters();
+            if (parameters.size() != 2) {
+                return;
+            }
+            Object alias = evaluate(parameters.get(0), file);
+            Object path = evaluate(parameters.get(1), file);
+            if (alias instanceof String && path instanceof String) {
+                File directory = toFile((String) path, file);
+                if (directory != null) {
+                    aliases.put((String) alias, directory.getPath());
+                }
+            }
+        }
+    }
+
+    /**
+     * Required file. It is replaced with the returned value of the file.
+     */
+    private static final class Required {
+
+        private final FileObject file;
+
+        public Required(FileObject file) {
+            this.file = file;
+        }
+
+        public FileObject getFile() {
+            return file;
+        }
+    }
+
+    /**
+     * CMap::mergeArray(). It is replaced with the merged array.
+     */
+    private static final class Merged {
+
+        private final List<Object> arguments;
+
+        public Merged(List<Object> arguments) {
+            this.arguments = arguments;
+        }
+
+        public List<Object> getArguments() {
+            return arguments;
+        }
+    }
+}
@@ -48,38 +48,30 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
 import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
 import org.nbphpcouncil.modules.php.yii.YiiModule;
 import org.nbphpcouncil.modules.php.yii.YiiModuleFactory;
+import org.nbphpcouncil.modules.php.yii.index.YiiMessageCatalog;
 import static org.nbphpcouncil.modules.php.yii.editor.YiiHyperlinkProviderExt.DEFAULT_OFFSET;
 import org.nbphpcouncil.modules.php.yii.editor.navi.GoToDefaultItem;
 import org.nbphpcouncil.modules.php.yii.editor.navi.GoToItem;
 import org.nbphpcouncil.modules.php.yii.editor.navi.GoToPopup;
 import org.nbphpcouncil.modules.php.yii.editor.navi.GoToTItem;
 import org.nbphpcouncil.modules.php.yii.editor.navi.PopupUtil;
+import org.nbphpcouncil.modules.php.yii.util.YiiCallContext;
 import org.nbphpcouncil.modules.php.yii.util.YiiDocUtils;
 import org.nbphpcouncil.modules.php.yii.util.YiiPathAliasSupport;
-import org.nbphpcouncil.modules.php.yii.util.YiiUtils;
 import org.nbphpcouncil.modules.php.yii.util.YiiViewPathSupport;
 import org.netbeans.api.editor.EditorRegistry;
 import org.netbeans.api.editor.mimelookup.MimeRegistration;
 import org.netbeans.api.lexer.Token;
 import org.netbeans.api.lexer.TokenSequence;
 import org.netbeans.lib.editor.hyperlink.spi.HyperlinkProviderExt;
-import org.netbeans.lib.editor.hyperlink.spi.HyperlinkType;
 import org.netbeans.modules.csl.api.UiUtils;
-import org.netbeans.modules.csl.spi.ParserResult;
 import org.netbeans.modules.editor.NbEditorUtilities;
-import org.netbeans.modules.parsing.api.ParserManager;
-import org.netbeans.modules.parsing.api.ResultIterator;
-import org.netbeans.modules.parsing.api.Source;
-import org.netbeans.modules.parsing.api.UserTask;
-import org.netbeans.modules.parsing.spi.ParseException;
 import org.netbeans.modules.parsing.spi.indexing.support.QuerySupport;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
 import org.netbeans.modules.php.api.util.FileUtils;
@@ -90,11 +82,6 @@ import org.netbeans.modules.php.editor.api.NameKind;
 import org.netbeans.modules.php.editor.api.QuerySupportFactory;
 import org.netbeans.modules.php.editor.api.elements.ClassElement;
 import org.netbeans.modules.php.editor.lexer.PHPTokenId;
-import org.netbeans.modules.php.editor.parser.api.Utils;
-import org.netbeans.modules.php.editor.parser.astnodes.ArrayElement;
-import org.netbeans.modules.php.editor.parser.astnodes.Expression;
-import org.netbeans.modules.php.editor.parser.astnodes.Scalar;
-import org.netbeans.modules.php.editor.parser.astnodes.visitors.DefaultVisitor;
 import org.openide.filesystems.FileObject;
 import org.openide.util.Exceptions;
 import org.openide.util.NbBundle;
@@ -104,13 +91,9 @@ import org.openide.util.NbBundle;
  * @author junichi11
  */
 @MimeRegistration(mimeType = FileUtils.PHP_MIME_TYPE, service = HyperlinkProviderExt.class)
-public class YiiGoToFileHyperlinkProvider extends YiiHyperlinkProviderExt {
+public class YiiGoToFileHyperlinkProvider extends YiiHyperlinkProviderExt<YiiGoToFileHyperlinkProvider.FileResolution> {
 
     private static final Set<String> methods = new HashSet<>();
-    private static final String DEFAULT_MESSAGES_DIR_NAME = "messages"; // NOI18N
-    private List<GoToItem> goToItems;
-    private int paramCount;
-    private static final Logger LOGGER = Logger.getLogger(YiiGoToFileHyperlinkProvider.class.getName());
 
     static {
         methods.add("widget"); // NOI18N
@@ -124,7 +107,8 @@ public class YiiGoToFileHyperlinkProvider extends YiiHyperlinkProviderExt {
     }
 
     @Override
-    public void performClickAction(Document doc, int offset, HyperlinkType type) {
+    protected void performClickAction(Document doc, int offset, FileResolution resolution) {
+        final List<GoToItem> goToItems = resolution.getGoToItems();
         // open file
         if (goToItems.size() == 1) {
             GoToItem item = goToItems.get(0);
@@ -151,35 +135,45 @@ public class YiiGoToFileHyperlinkProvider extends YiiHyperlinkProviderExt {
     }
 
     @Override
-    protected boolean verifyState(Document doc, int offset, HyperlinkType type) {
+    protected FileResolution resolve(Document doc, int offset, long version) {
         // get TokenSequence
         TokenSequence<PHPTokenId> ts = YiiDocUtils.getTokenSequence(doc);
         if (ts == null) {
-            return false;
+            return null;
         }
 
         // get current positon text
-        target = getCurrentPositionString(ts, offset);
+        String target = getCurrentPositionString(ts, offset);
         if (target == null) {
-            return false;
+            return null;
         }
-
-        // set span
-        targetStart = ts.offset() + 1;
-        targetEnd = targetStart + target.length();
+        int tokenStart = ts.offset();
+        int tokenEnd = tokenStart + ts.token().length();
 
         // create go to items
         PhpModule phpModule = PhpModule.Factory.inferPhpModule();
-        goToItems = createGoToItems(phpModule, doc, offset);
-        return !goToItems.isEmpty();
+        List<GoToItem> goToItems = createGoToItems(phpModule, doc, offset, target);
+        return new FileResolution(version, tokenStart, tokenEnd, goToItems);
     }
 
     @Override
     @NbBundle.Messages({
         "LBL.NotFoundFile=Not found file",
-        "LBL.I18N.Message=If you click, go to list is displayed"
+        "LBL.I18N.Message=If you click, go to list is displayed",
+        "# {0} - locale IDs",
+        "LBL.I18N.Missing=Missing translations: {0}"
     })
-    public String getTooltipText(Document doc, int offset, HyperlinkType type) {
+    protected String getTooltipText(FileResolution resolution) {
+        List<GoToItem> goToItems = resolution.getGoToItems();
+        List<String> missingLocales = new ArrayList<>();
+        for (GoToItem item : goToItems) {
+            if (item instanceof GoToTItem && ((GoToTItem) item).isMissing()) {
+                missingLocales.add(item.toString());
+            }
+        }
+        if (!missingLocales.isEmpty()) {
+            return Bundle.LBL_I18N_Message() + " (" + Bundle.LBL_I18N_Missing(StringUtils.implode(missingLocales, ", ")) + ")"; // NOI18N
+        }
         if (goToItems.size() == 1) {
             return goToItems.get(0).getFileObject().getPath();
         }
@@ -189,35 +183,6 @@ public class YiiGoToFileHyperlinkProvider extends YiiHyperlinkProviderExt {
         return Bundle.LBL_NotFoundFile();
     }
 
-    /**
-     * Get method name of current caret position.
-     *
-     * @param ts TokenSequence
-     * @return method name.
-     */
-    private String getMethodName(TokenSequence<PHPTokenId> ts) {
-        String name = null;
-        paramCount = 1;
-        while (ts.movePrevious()) {
-            Token<PHPTokenId> token = ts.token();
-            String text = token.text().toString();
-            PHPTokenId id = token.id();
-            if (id == PHPTokenId.PHP_TOKEN && text.equals(",")) { // NOI18N
-                // XXX this is not exact
-                paramCount++;
-                continue;
-            }
-            if (id == PHPTokenId.PHP_SEMICOLON || id == PHPTokenId.PHP_FUNCTION || id == PHPTokenId.PHP_OPENTAG) {
-                break;
-            }
-            if (id == PHPTokenId.PHP_STRING) {
-                name = text;
-                break;
-            }
-        }
-        return name;
-    }
-
     /**
      * Get class file if target is class name.
      *
@@ -243,9 +208,10 @@ public class YiiGoToFileHyperlinkProvider extends YiiHyperlinkProviderExt {
      * @param phpModule
      * @param doc
      * @param offset
+     * @param target string of the current position
      * @return GoToItem list
      */
-    private List<GoToItem> createGoToItems(PhpModule phpModule, Document doc, int offset) {
+    private List<GoToItem> createGoToItems(PhpModule phpModule, Document doc, int offset, String target) {
         List<GoToItem> items = new ArrayList<>();
         // check whether target is class name
         FileObject classFile = getClassFileObject(phpModule, target);
@@ -256,16 +222,19 @@ public class YiiGoToFileHyperlinkProvider extends YiiHyperlinkProviderExt {
 
         // get method name
         TokenSequence<PHPTokenId> ts = YiiDocUtils.getTokenSequence(doc);
-        ts.move(offset);
-        ts.moveNext();
-        String methodName = getMethodName(ts);
+        YiiCallContext context = YiiCallContext.analyze(ts, offset);
+        if (context == null || context.getNestingDepth() != 0) {
+            return items;
+        }
+        String methodName = context.getMethodName();
         if (!methods.contains(methodName)) {
             return items;
         }
+        int paramCount = context.getArgumentIndex() + 1;
 
         // for i18n
         if (methodName.equals("t")) { // NOI18N
-            return createGoToTItems(phpModule, ts, offset);
+            return createGoToTItems(phpModule, ts, context.getMethodOffset(), target, paramCount);
         }
 
         // for absolute view path
@@ -287,12 +256,17 @@ public class YiiGoToFileHyperlinkProvider extends YiiHyperlinkProviderExt {
     }
 
     /**
-     * Create GoToTItems.
+     * Create GoToTItems. Message files and offsets of the message are got
+     * from the message catalog.
      *
      * @param phpModule
+     * @param ts
+     * @param methodOffset offset of the method name
+     * @param target string of the current position
+     * @param paramCount parameter number of the current position
      * @return true if item list is not empty, otherwise false.
      */
-    private List<GoToItem> createGoToTItems(PhpModule phpModule, TokenSequence<PHPTokenId> ts, int offset) {
+    private List<GoToItem> createGoToTItems(PhpModule phpModule, TokenSequence<PHPTokenId> ts, int methodOffset, String target, int paramCount) {
         List<GoToItem> items = new ArrayList<>();
 
         YiiModule yiiModule = YiiModuleFactory.create(phpModule);
@@ -302,85 +276,21 @@ public class YiiGoToFileHyperlinkProvider extends YiiHyperlinkProviderExt {
         }
 
         // move to offset of message for second parameter
-        String message = ""; // NOI18N
+        String message = null;
+        String category = target;
         if (paramCount == 2) {
-            String tFirstParam = getTFirstParam(ts, offset);
+            String tFirstParam = getTFirstParam(ts, methodOffset);
             if (tFirstParam == null) {
                 return items;
             }
             message = target;
-            target = tFirstParam;
-        }
-
-        // get messages directory
-        FileObject messagesDirectory = null;
-        String messagesDirectoryName = DEFAULT_MESSAGES_DIR_NAME;
-
-        // check whether text contains class name
-        String className = ""; // NOI18N
-        if (target.contains(".")) { // NOI18N
-            int dotIndex = target.indexOf("."); // NOI18N
-            className = target.substring(0, dotIndex);
-            String categoryName = target.substring(dotIndex + 1);
-            target = categoryName;
-            FileObject classFile = getClassFileObject(phpModule, className);
-            if (classFile != null) {
-                FileObject parent = classFile.getParent();
-                if (parent != null && parent.isFolder()) {
-                    messagesDirectory = parent.getFileObject(messagesDirectoryName);
-                }
-            }
+            category = tFirstParam;
         }
 
-        if (className.isEmpty() && messagesDirectory == null) {
-            messagesDirectory = yiiModule.getMessages();
-        }
-        if (messagesDirectory == null) {
-            return items;
-        }
-
-        // sort
-        FileObject[] children = messagesDirectory.getChildren();
-        YiiUtils.sort(children);
-
         // add item
-        for (FileObject child : children) {
-            // create GoToItem
-            int messageOffset = DEFAULT_OFFSET;
-            final Set<Integer> mOffset = new HashSet<>();
-            final String messageKey = message;
-            FileObject messageFile = child.getFileObject(target + ".php"); // NOI18N
-            if (messageFile != null) {
-                // click second parameter
-                if (!StringUtils.isEmpty(messageKey)) {
-                    // get offset for massage
-                    try {
-                        ParserManager.parse(Collections.singleton(Source.create(messageFile)), new UserTask() {
-                            @Override
-                            public void run(ResultIterator resultIterator) throws Exception {
-                                ParserResult parseResult = (ParserResult) resultIterator.getParserResult();
-                                if (parseResult == null) {
-                                    return;
-                                }
-                                final MessageVisitor messageVisitor = new MessageVisitor(messageKey);
-                                messageVisitor.scan(Utils.getRoot(parseResult));
-                                mOffset.add(messageVisitor.getOffset());
-                            }
-                        });
-                    } catch (ParseException ex) {
-                        LOGGER.log(Level.WARNING, null, ex);
-                    }
-                }
-
-                // set offset
-                if (!mOffset.isEmpty()) {
-                    for (Integer o : mOffset) {
-                        messageOffset = o.intValue();
-                        break;
-                    }
-                }
-                items.add(new GoToTItem(messageFile, messageOffset, child.getName()));
-            }
+        for (YiiMessageCatalog.Message m : yiiModule.getMessageCatalog().getMessages(category, message)) {
+            int messageOffset = m.isMissing() ? DEFAULT_OFFSET : m.getOffset();
+            items.add(new GoToTItem(m.getFile(), messageOffset, m.getLocale(), message != null && m.isMissing()));
         }
         return items;
     }
@@ -389,66 +299,46 @@ public class YiiGoToFileHyperlinkProvider extends YiiHyperlinkProviderExt {
      * Get first parameter for t method. It is valid for only second parameter.
      *
      * @param ts TokenSequence
-     * @param offset current offset
+     * @param methodOffset offset of the method name
      * @return first parameter for t method.
      */
-    private String getTFirstParam(TokenSequence<PHPTokenId> ts, int offset) {
-        if (paramCount == 2) {
-            ts.move(offset);
-            ts.moveNext();
+    private String getTFirstParam(TokenSequence<PHPTokenId> ts, int methodOffset) {
+        // move to method
+        ts.move(methodOffset);
+        ts.moveNext();
 
-            // search method
-            while (ts.movePrevious()) {
-                Token<PHPTokenId> token = ts.token();
-                if (token.id() == PHPTokenId.PHP_STRING) {
-                    break;
-                }
+        // search first parameter
+        while (ts.moveNext()) {
+            Token<PHPTokenId> token = ts.token();
+            PHPTokenId id = token.id();
+            if (id == PHPTokenId.PHP_SEMICOLON) {
+                break;
             }
-
-            // search first parameter
-            while (ts.moveNext()) {
-                Token<PHPTokenId> token = ts.token();
-                PHPTokenId id = token.id();
-                if (id == PHPTokenId.PHP_SEMICOLON) {
-                    break;
-                }
-                if (id == PHPTokenId.PHP_CONSTANT_ENCAPSED_STRING) {
-                    String text = token.text().toString();
-                    return text.substring(1, text.length() - 1);
-                }
+            if (id == PHPTokenId.PHP_CONSTANT_ENCAPSED_STRING) {
+                String text = token.text().toString();
+                return text.substring(1, text.length() - 1);
             }
         }
         return null;
     }
 
     //~ inner class
-    private class MessageVisitor extends DefaultVisitor {
+    static final class FileResolution extends YiiHyperlinkProviderExt.Resolution {
 
-        private int offset;
-        private final String message;
+        private final List<GoToItem> goToItems;
 
-        public MessageVisitor(String message) {
-            this.message = message;
+        FileResolution(long version, int tokenStart, int tokenEnd, List<GoToItem> goToItems) {
+            super(version, tokenStart, tokenEnd);
+            this.goToItems = Collections.unmodifiableList(goToItems);
         }
 
-        @Override
-        public void visit(ArrayElement node) {
-            super.visit(node);
-            Expression key = node.getKey();
-            if (key instanceof Scalar) {
-                Scalar s = (Scalar) key;
-                if (s.getScalarType() == Scalar.Type.STRING) {
-                    String keyValue = s.getStringValue();
-                    keyValue = keyValue.substring(1, keyValue.length() - 1);
-                    if (keyValue.equals(message)) {
-                        offset = node.getStartOffset();
-                    }
-                }
-            }
+        List<GoToItem> getGoToItems() {
+            return goToItems;
         }
 
-        public int getOffset() {
-            return offset;
+        @Override
+        public boolean isHyperlink() {
+            return !goToItems.isEmpty();
         }
     }
 }
@@ -41,20 +41,17 @@
  */
 package org.nbphpcouncil.modules.php.yii.editor;
 
-import java.util.EnumSet;
-import java.util.Set;
 import javax.swing.text.Document;
 import org.nbphpcouncil.modules.php.yii.YiiModule;
 import org.nbphpcouncil.modules.php.yii.YiiModuleFactory;
 import org.nbphpcouncil.modules.php.yii.preferences.YiiPreferences;
 import org.nbphpcouncil.modules.php.yii.ui.actions.YiiGoToViewSupport;
+import org.nbphpcouncil.modules.php.yii.util.YiiCallContext;
 import org.nbphpcouncil.modules.php.yii.util.YiiDocUtils;
 import org.nbphpcouncil.modules.php.yii.util.YiiUtils;
 import org.netbeans.api.editor.mimelookup.MimeRegistration;
-import org.netbeans.api.lexer.Token;
 import org.netbeans.api.lexer.TokenSequence;
 import org.netbeans.lib.editor.hyperlink.spi.HyperlinkProviderExt;
-import org.netbeans.lib.editor.hyperlink.spi.HyperlinkType;
 import org.netbeans.modules.csl.api.UiUtils;
 import org.netbeans.modules.editor.NbEditorUtilities;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
@@ -68,41 +65,16 @@ import org.openide.util.NbBundle;
  * @author junichi11
  */
 @MimeRegistration(mimeType = "text/x-php5", service = HyperlinkProviderExt.class)
-public class YiiGoToViewHyperlinkProvider implements HyperlinkProviderExt {
-
-    private static final int DEFAULT_OFFSET = 0;
-    private FileObject view = null;
-    private String target = ""; // NOI18N
-    private int targetStart;
-    private int targetEnd;
-    private boolean useAutoCreate = false;
-    private FileObject controller;
-    private YiiGoToViewSupport support;
-
-    @Override
-    public Set<HyperlinkType> getSupportedHyperlinkTypes() {
-        return EnumSet.of(HyperlinkType.GO_TO_DECLARATION);
-    }
-
-    @Override
-    public boolean isHyperlinkPoint(Document doc, int offset, HyperlinkType type) {
-        return verifyState(doc, offset);
-    }
-
-    @Override
-    public int[] getHyperlinkSpan(Document doc, int offset, HyperlinkType type) {
-        if (view != null || useAutoCreate) {
-            return new int[]{targetStart, targetEnd};
-        }
-        return null;
-    }
+public class YiiGoToViewHyperlinkProvider extends YiiHyperlinkProviderExt<YiiGoToViewHyperlinkProvider.ViewResolution> {
 
     @Override
-    public void performClickAction(Document doc, int offset, HyperlinkType type) {
+    protected void performClickAction(Document doc, int offset, ViewResolution resolution) {
         // use "create view file automatically"
-        boolean isFallback = YiiPreferences.isFallbackToDefaultViews(PhpModule.Factory.forFileObject(controller));
-        if (view == null && useAutoCreate && !isFallback) {
-            view = support.createView();
+        FileObject view = resolution.getView();
+        if (view == null && resolution.useAutoCreate() && !resolution.isFallback()) {
+            view = YiiGoToViewSupport.create(resolution.getController(), resolution.getViewId()).createView();
+            // the resolution doesn't know the new view
+            invalidate(doc);
         }
 
         // Open view file
@@ -112,20 +84,20 @@ public class YiiGoToViewHyperlinkProvider implements HyperlinkProviderExt {
     }
 
     /**
-     * Verify whether caret position is on view file name string.
+     * Resolve the view file name string of the caret position.
      *
      * @param doc
      * @param offset
-     * @return true if view file exsits, otherwise false.
+     * @param version document version
+     * @return resolution if the string is a view of render method, otherwise
+     * null.
      */
-    @SuppressWarnings("unchecked")
-    private boolean verifyState(Document doc, int offset) {
+    @Override
+    protected ViewResolution resolve(Document doc, int offset, long version) {
         // get FileObject
-        controller = NbEditorUtilities.getFileObject(doc);
-
-        // check Yii
-        if (controller == null || !YiiUtils.isYii(PhpModule.Factory.forFileObject(controller))) {
-            return false;
+        FileObject controller = NbEditorUtilities.getFileObject(doc);
+        if (controller == null) {
+            return null;
         }
 
         // check whether target file is view
@@ -134,77 +106,55 @@ public class YiiGoToViewHyperlinkProvider implements HyperlinkProviderExt {
         }
 
         if (controller == null || !YiiUtils.isController(controller)) {
-            return false;
+            return null;
         }
 
         // get TokenSequence
         TokenSequence<PHPTokenId> ts = YiiDocUtils.getTokenSequence(doc);
         if (ts == null) {
-            return false;
+            return null;
         }
-        ts.move(offset);
-        ts.moveNext();
-        int newOffset = ts.offset();
-
-        Token<PHPTokenId> token = ts.token();
-        setTarget(token);
 
-        if (target.isEmpty() || !isRenderMethod(ts)) {
-            return false;
+        String target = getCurrentPositionString(ts, offset);
+        if (target == null || target.isEmpty()) {
+            return null;
         }
-
-        // get view file
-        support = YiiGoToViewSupport.create(controller, target);
-        view = support.getView();
-
-        useAutoCreate = YiiPreferences.useAutoCreateView(PhpModule.Factory.forFileObject(controller));
-        if (view != null || useAutoCreate) {
-            targetStart = newOffset + 1;
-            targetEnd = targetStart + target.length();
-            return true;
+        int tokenStart = ts.offset();
+        int tokenEnd = tokenStart + ts.token().length();
+        if (!isRenderMethod(ts, offset)) {
+            return null;
         }
 
-        return false;
+        // get view file
+        PhpModule phpModule = PhpModule.Factory.forFileObject(controller);
+        YiiModule yiiModule = YiiModuleFactory.create(phpModule);
+        boolean isFallback = YiiPreferences.isFallbackToDefaultViews(phpModule);
+        FileObject view = yiiModule.getViewCache().getView(controller, target, yiiModule.getThemeName(), isFallback);
+        boolean useAutoCreate = YiiPreferences.useAutoCreateView(phpModule);
+        return new ViewResolution(version, tokenStart, tokenEnd, controller, target, view, useAutoCreate, isFallback);
     }
 
     /**
      * Verify whether method name is "render" or "renderPartial".
      *
      * @param ts TokenSequence
+     * @param offset caret offset
      * @return true if render method, otherwise false
      */
-    private boolean isRenderMethod(TokenSequence<PHPTokenId> ts) {
-        ts.movePrevious();
-        ts.movePrevious();
-        Token<PHPTokenId> render = ts.token();
-        String text = render.text().toString();
-        return text.equals("render") || text.equals("renderPartial");
-    }
-
-    /**
-     * Set target string. If token is string on carret position, set stirng to
-     * target, otherwise set empty string to it.
-     *
-     * @param token
-     */
-    private void setTarget(Token<PHPTokenId> token) {
-        target = token.text().toString();
-        PHPTokenId id = token.id();
-        if (id == PHPTokenId.PHP_CONSTANT_ENCAPSED_STRING) {
-            if (target.length() > 2) {
-                target = target.substring(1, target.length() - 1);
-            } else {
-                target = ""; // NOI18N
-            }
-        } else {
-            target = ""; // NOI18N
+    private boolean isRenderMethod(TokenSequence<PHPTokenId> ts, int offset) {
+        YiiCallContext context = YiiCallContext.analyze(ts, offset);
+        if (context == null || context.getArgumentIndex() != 0 || context.getNestingDepth() != 0) {
+            return false;
         }
+        String methodName = context.getMethodName();
+        return methodName.equals("render") || methodName.equals("renderPartial"); // NOI18N
     }
 
     @NbBundle.Messages("LBL_NotFoundViewFileMessage=Doesn't exist a file yet. If you click this link, a new empty view file will be created.")
     @Override
-    public String getTooltipText(Document doc, int offset, HyperlinkType type) {
+    protected String getTooltipText(ViewResolution resolution) {
         String viewPath = ""; // NOI18N
+        FileObject view = resolution.getView();
         if (view != null) {
             PhpModule phpModule = PhpModule.Factory.forFileObject(view);
             YiiModule yiiModule = YiiModuleFactory.create(phpModule);
@@ -215,10 +165,54 @@ public class YiiGoToViewHyperlinkProvider implements HyperlinkProviderExt {
                 viewPath = view.getPath();
             }
         } else {
-            if (useAutoCreate) {
+            if (resolution.useAutoCreate()) {
                 viewPath = Bundle.LBL_NotFoundViewFileMessage();
             }
         }
         return viewPath;
     }
+
+    //~ Inner classes
+    static final class ViewResolution extends YiiHyperlinkProviderExt.Resolution {
+
+        private final FileObject controller;
+        private final String viewId;
+        private final FileObject view;
+        private final boolean useAutoCreate;
+        private final boolean isFallback;
+
+        ViewResolution(long version, int tokenStart, int tokenEnd, FileObject controller, String viewId, FileObject view, boolean useAutoCreate, boolean isFallback) {
+            super(version, tokenStart, tokenEnd);
+            this.controller = controller;
+            this.viewId = viewId;
+            this.view = view;
+            this.useAutoCreate = useAutoCreate;
+            this.isFallback = isFallback;
+        }
+
+        FileObject getController() {
+            return controller;
+        }
+
+        String getViewId() {
+            return viewId;
+        }
+
+        FileObject getView() {
+            return view;
+        }
+
+        boolean useAutoCreate() {
+            return useAutoCreate;
+        }
+
+        boolean isFallback() {
+            return isFallback;
+        }
+
+        @Override
+        public boolean isHyperlink() {
+            return view != null || useAutoCreate;
+        }
+    }
 }
@@ -42,7 +42,9 @@
 package org.nbphpcouncil.modules.php.yii.editor;
 
 import java.util.EnumSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import javax.swing.text.Document;
 import org.nbphpcouncil.modules.php.yii.util.YiiDocUtils;
 import org.nbphpcouncil.modules.php.yii.util.YiiUtils;
@@ -50,20 +52,27 @@ import org.netbeans.api.lexer.Token;
 import org.netbeans.api.lexer.TokenSequence;
 import org.netbeans.lib.editor.hyperlink.spi.HyperlinkProviderExt;
 import org.netbeans.lib.editor.hyperlink.spi.HyperlinkType;
+import org.netbeans.lib.editor.util.swing.DocumentUtilities;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
 import org.netbeans.modules.php.editor.lexer.PHPTokenId;
 import org.openide.filesystems.FileObject;
 
 /**
+ * Base class of hyperlink providers for string literals.
+ *
+ * Providers are shared by all editors, so they don't have a state of the
+ * current request. A string literal is resolved to an immutable
+ * {@link Resolution} which is cached per document until the document is
+ * edited or another literal is hovered.
  *
  * @author junichi11
+ * @param <T> resolution type
  */
-public abstract class YiiHyperlinkProviderExt implements HyperlinkProviderExt {
+public abstract class YiiHyperlinkProviderExt<T extends YiiHyperlinkProviderExt.Resolution> implements HyperlinkProviderExt {
 
     protected static final int DEFAULT_OFFSET = 0;
-    protected String target = ""; // NOI18N
-    protected int targetStart;
-    protected int targetEnd;
+    // @GuardedBy("resolutions")
+    private final Map<Document, T> resolutions = new WeakHashMap<>();
 
     @Override
     public Set<HyperlinkType> getSupportedHyperlinkTypes() {
@@ -75,31 +84,100 @@ public abstract class YiiHyperlinkProviderExt implements HyperlinkProviderExt {
         if (!isYii(doc)) {
             return false;
         }
-        return verifyState(doc, offset, type);
+        T resolution = getResolution(doc, offset);
+        return resolution != null && resolution.isHyperlink();
     }
 
     @Override
     public int[] getHyperlinkSpan(Document doc, int offset, HyperlinkType type) {
-        return new int[]{targetStart, targetEnd};
+        T resolution = getResolution(doc, offset);
+        if (resolution == null || !resolution.isHyperlink()) {
+            return null;
+        }
+        return new int[]{resolution.getTargetStart(), resolution.getTargetEnd()};
     }
 
     @Override
-    public abstract void performClickAction(Document doc, int offset, HyperlinkType type);
+    public void performClickAction(Document doc, int offset, HyperlinkType type) {
+        T resolution = getResolution(doc, offset);
+        if (resolution != null && resolution.isHyperlink()) {
+            performClickAction(doc, offset, resolution);
+        }
+    }
 
     @Override
     public String getTooltipText(Document doc, int offset, HyperlinkType type) {
-        return null;
+        T resolution = getResolution(doc, offset);
+        if (resolution == null) {
+            return null;
+        }
+        return getTooltipText(resolution);
     }
 
     /**
-     * Verify whether current position is Hyperlink point.
+     * Open the target of the resolution.
+     *
+     * @param doc
+     * @param offset
+     * @param resolution resolution for the offset
+     */
+    protected abstract void performClickAction(Document doc, int offset, T resolution);
+
+    /**
+     * Get tooltip text of the resolution.
+     *
+     * @param resolution resolution for the offset
+     * @return tooltip text
+     */
+    protected abstract String getTooltipText(T resolution);
+
+    /**
+     * Resolve the string literal of the offset. Don't keep the result in this
+     * provider, it is cached per document.
+     *
+     * @param doc
+     * @param offset
+     * @param version document version
+     * @return resolution, null if the offset is not a hyperlink point
+     */
+    protected abstract T resolve(Document doc, int offset, long version);
+
+    /**
+     * Get the resolution for the offset. The cached resolution is reused while
+     * the offset is in the same string literal of the same document version.
      *
      * @param doc
      * @param offset
-     * @param type
-     * @return true if current position is hyperlink, otherwise false.
+     * @return resolution, null if the offset is not a hyperlink point
+     */
+    protected T getResolution(Document doc, int offset) {
+        long version = DocumentUtilities.getDocumentVersion(doc);
+        synchronized (resolutions) {
+            T resolution = resolutions.get(doc);
+            if (resolution != null && resolution.isValid(version, offset)) {
+                return resolution;
+            }
+        }
+        T resolution = resolve(doc, offset, version);
+        if (resolution != null) {
+            synchronized (resolutions) {
+                resolutions.put(doc, resolution);
+            }
+        }
+        return resolution;
+    }
+
+    /**
+     * Remove the cached resolution of the document. e.g. when the target file
+     * is created
+     *
+     * @param doc
      */
-    protected abstract boolean verifyState(Document doc, int offset, HyperlinkType type);
+    protected void invalidate(Document doc) {
+        synchronized (resolutions) {
+            resolutions.remove(doc);
+        }
+    }
 
     /**
      * Check whether current document is Yii.
@@ -127,7 +205,7 @@ public abstract class YiiHyperlinkProviderExt implements HyperlinkProviderExt {
         ts.move(offset);
         ts.moveNext();
         Token<PHPTokenId> token = ts.token();
-        if (token.id() == PHPTokenId.PHP_CONSTANT_ENCAPSED_STRING) {
+        if (token != null && token.id() == PHPTokenId.PHP_CONSTANT_ENCAPSED_STRING) {
             String text = token.text().toString();
             int length = text.length();
             if (length > 2) {
@@ -139,4 +217,58 @@ public abstract class YiiHyperlinkProviderExt implements HyperlinkProviderExt {
         }
         return null;
     }
+
+    //~ Inner classes
+    /**
+     * Immutable result of the string literal of a document version.
+     */
+    public abstract static class Resolution {
+
+        private final long version;
+        private final int tokenStart;
+        private final int tokenEnd;
+
+        /**
+         * Constructor.
+         *
+         * @param version document version
+         * @param tokenStart start offset of the string literal (including the
+         * quote)
+         * @param tokenEnd end offset of the string literal
+         */
+        public Resolution(long version, int tokenStart, int tokenEnd) {
+            this.version = version;
+            this.tokenStart = tokenStart;
+            this.tokenEnd = tokenEnd;
+        }
+
+        boolean isValid(long version, int offset) {
+            return this.version == version && tokenStart <= offset && offset < tokenEnd;
+        }
+
+        /**
+         * Get start offset of the hyperlink (without the quote).
+         *
+         * @return start offset
+         */
+        public int getTargetStart() {
+            return tokenStart + 1;
+        }
+
+        /**
+         * Get end offset of the hyperlink (without the quote).
+         *
+         * @return end offset
+         */
+        public int getTargetEnd() {
+            return Math.max(tokenEnd - 1, getTargetStart());
+        }
+
+        /**
+         * Check whether the string literal is a hyperlink.
+         *
+         * @return true if it is a hyperlink, otherwise false
+         */
+        public abstract boolean isHyperlink();
+    }
 }
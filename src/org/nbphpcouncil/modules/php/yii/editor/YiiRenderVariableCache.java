@@ -0,0 +1,509 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.editor;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.Document;
+import org.nbphpcouncil.modules.php.yii.YiiFileDescriptor;
+import org.nbphpcouncil.modules.php.yii.YiiModuleFactory;
+import org.nbphpcouncil.modules.php.yii.util.YiiCodeUtils;
+import org.nbphpcouncil.modules.php.yii.util.YiiUtils;
+import org.netbeans.modules.csl.spi.ParserResult;
+import org.netbeans.modules.parsing.api.ParserManager;
+import org.netbeans.modules.parsing.api.ResultIterator;
+import org.netbeans.modules.parsing.api.Source;
+import org.netbeans.modules.parsing.api.UserTask;
+import org.netbeans.modules.parsing.spi.ParseException;
+import org.netbeans.modules.php.api.editor.PhpClass;
+import org.netbeans.modules.php.api.editor.PhpVariable;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.netbeans.modules.php.editor.CodeUtils;
+import org.netbeans.modules.php.editor.parser.api.Utils;
+import org.netbeans.modules.php.editor.parser.astnodes.ArrayCreation;
+import org.netbeans.modules.php.editor.parser.astnodes.ArrayElement;
+import org.netbeans.modules.php.editor.parser.astnodes.Assignment;
+import org.netbeans.modules.php.editor.parser.astnodes.Assignment.Type;
+import org.netbeans.modules.php.editor.parser.astnodes.ClassInstanceCreation;
+import org.netbeans.modules.php.editor.parser.astnodes.Comment;
+import org.netbeans.modules.php.editor.parser.astnodes.Expression;
+import org.netbeans.modules.php.editor.parser.astnodes.FunctionInvocation;
+import org.netbeans.modules.php.editor.parser.astnodes.MethodDeclaration;
+import org.netbeans.modules.php.editor.parser.astnodes.MethodInvocation;
+import org.netbeans.modules.php.editor.parser.astnodes.Program;
+import org.netbeans.modules.php.editor.parser.astnodes.StaticMethodInvocation;
+import org.netbeans.modules.php.editor.parser.astnodes.Variable;
+import org.netbeans.modules.php.editor.parser.astnodes.VariableBase;
+import org.netbeans.modules.php.editor.parser.astnodes.visitors.DefaultVisitor;
+import org.openide.filesystems.FileObject;
+import org.openide.util.WeakListeners;
+
+/**
+ * Cache of variables which are passed to views by controllers. A controller
+ * is parsed once and the result is shared by all of its views until the file
+ * (or the opened document) is changed.
+ *
+ * render() and renderPartial() calls of all methods are analyzed. Layouts
+ * ($this->layout, beginContent()) are not resolved, layout files only get
+ * $content. Types are inferred from <code>new X</code>,
+ * <code>X::model()->find*()</code> and <code>@var</code> comments.
+ *
+ * @author junichi11
+ */
+public final class YiiRenderVariableCache {
+
+    private static final Logger LOGGER = Logger.getLogger(YiiRenderVariableCache.class.getName());
+    private static final String CONTENT = "$content"; // NOI18N
+    private static final String SLASH = "/"; // NOI18N
+    private static final String DOUBLE_SLASH = "//"; // NOI18N
+    // @GuardedBy("CACHE")
+    private static final Map<FileObject, ControllerModel> CACHE = new WeakHashMap<>();
+
+    private YiiRenderVariableCache() {
+    }
+
+    /**
+     * Get variables which are passed to the view.
+     *
+     * @param controller controller file
+     * @param view view file
+     * @return variables
+     */
+    public static Set<PhpVariable> getVariables(FileObject controller, FileObject view) {
+        ControllerModel model = getModel(controller);
+        Set<RenderVariable> variables = new LinkedHashSet<>();
+        YiiFileDescriptor descriptor = getDescriptor(view);
+        for (String viewPath : getViewPaths(view, descriptor)) {
+            variables.addAll(model.getViewVariables(viewPath));
+        }
+        // e.g. render($view, array(...)) in actionIndex
+        variables.addAll(model.getActionVariables(YiiUtils.getActionMethodName(view.getName())));
+        return toPhpVariables(variables, controller, view);
+    }
+
+    /**
+     * Get variables of the layout. Only $content is provided because the
+     * layout of a controller may be inherited from a base controller (e.g.
+     * components/Controller.php) and all controllers would have to be parsed.
+     *
+     * @param layout layout file
+     * @return variables, empty set if the file is not a layout
+     */
+    public static Set<PhpVariable> getLayoutVariables(FileObject layout) {
+        YiiFileDescriptor descriptor = getDescriptor(layout);
+        if (descriptor == null || descriptor.getRole() != YiiFileDescriptor.Role.LAYOUT) {
+            return Collections.emptySet();
+        }
+        return toPhpVariables(Collections.singleton(new RenderVariable(CONTENT, null)), layout, layout);
+    }
+
+    private static Set<PhpVariable> toPhpVariables(Set<RenderVariable> variables, FileObject classFile, FileObject view) {
+        // union of types
+        Set<PhpVariable> phpVariables = new HashSet<>();
+        for (RenderVariable variable : variables) {
+            if (variable.type != null) {
+                PhpClass phpClass = new PhpClass(variable.type, variable.type);
+                phpVariables.add(new PhpVariable(variable.name, phpClass, classFile, 0));
+            } else {
+                phpVariables.add(new PhpVariable(variable.name, variable.name, view));
+            }
+        }
+        return phpVariables;
+    }
+
+    private static YiiFileDescriptor getDescriptor(FileObject view) {
+        PhpModule phpModule = PhpModule.Factory.forFileObject(view);
+        if (phpModule == null) {
+            return null;
+        }
+        return YiiModuleFactory.create(phpModule).getFileClassifier().classify(view);
+    }
+
+    /**
+     * Get view paths which can be used for the view. e.g. index, /site/index,
+     * //site/index
+     */
+    private static List<String> getViewPaths(FileObject view, YiiFileDescriptor descriptor) {
+        List<String> viewPaths = new ArrayList<>();
+        viewPaths.add(view.getName());
+        if (descriptor == null || !descriptor.isView()) {
+            return viewPaths;
+        }
+        String viewPath = descriptor.getViewPath();
+        viewPaths.add(SLASH + viewPath);
+        if (descriptor.getModuleNames().isEmpty()) {
+            viewPaths.add(DOUBLE_SLASH + viewPath);
+        }
+        return viewPaths;
+    }
+
+    private static ControllerModel getModel(FileObject controller) {
+        Source source = Source.create(controller);
+        Document document = source.getDocument(false);
+        long lastModified = controller.lastModified().getTime();
+        synchronized (CACHE) {
+            ControllerModel model = CACHE.get(controller);
+            if (model != null && model.isUpToDate(document, lastModified)) {
+                return model;
+            }
+        }
+        ControllerModel model = new ControllerModel(document, lastModified);
+        model.analyze(source);
+        synchronized (CACHE) {
+            CACHE.put(controller, model);
+        }
+        return model;
+    }
+
+    //~ Inner classes
+    /**
+     * Render variables of a controller. It becomes stale when the file is
+     * modified or the document is edited. The document is weakly referenced
+     * because the document refers to the controller file which is the key of
+     * the cache.
+     */
+    private static final class ControllerModel implements DocumentListener {
+
+        private final Reference<Document> document;
+        private final long lastModified;
+        private volatile boolean isModified = false;
+        private volatile YiiControllerVisitor result = new YiiControllerVisitor(""); // NOI18N
+
+        ControllerModel(Document document, long lastModified) {
+            this.document = new WeakReference<>(document);
+            this.lastModified = lastModified;
+            if (document != null) {
+                document.addDocumentListener(WeakListeners.document(this, document));
+            }
+        }
+
+        boolean isUpToDate(Document currentDocument, long currentLastModified) {
+            return !isModified
+                    && document.get() == currentDocument
+                    && lastModified == currentLastModified;
+        }
+
+        Set<RenderVariable> getViewVariables(String viewPath) {
+            return get(result.viewVariables, viewPath);
+        }
+
+        Set<RenderVariable> getActionVariables(String actionMethodName) {
+            return get(result.actionVariables, actionMethodName);
+        }
+
+        private static Set<RenderVariable> get(Map<String, Set<RenderVariable>> map, String key) {
+            Set<RenderVariable> variables = map.get(key);
+            if (variables == null) {
+                return Collections.emptySet();
+            }
+            return variables;
+        }
+
+        void analyze(Source source) {
+            try {
+                ParserManager.parse(Collections.singleton(source), new UserTask() {
+                    @Override
+                    public void run(ResultIterator resultIterator) throws Exception {
+                        ParserResult parserResult = (ParserResult) resultIterator.getParserResult();
+                        Program root = Utils.getRoot(parserResult);
+                        if (root != null) {
+                            YiiControllerVisitor controllerVisitor = new YiiControllerVisitor(resultIterator.getSnapshot().getText());
+                            controllerVisitor.scan(root);
+                            result = controllerVisitor;
+                        }
+                    }
+                });
+            } catch (ParseException ex) {
+                LOGGER.log(Level.WARNING, null, ex);
+            }
+        }
+
+        @Override
+        public void insertUpdate(DocumentEvent e) {
+            isModified = true;
+        }
+
+        @Override
+        public void removeUpdate(DocumentEvent e) {
+            isModified = true;
+        }
+
+        @Override
+        public void changedUpdate(DocumentEvent e) {
+        }
+    }
+
+    private static final class RenderVariable {
+
+        private final String name;
+        private final String type;
+
+        RenderVariable(String name, String type) {
+            this.name = name;
+            this.type = type;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 29 * hash + name.hashCode();
+            hash = 29 * hash + (type != null ? type.hashCode() : 0);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof RenderVariable)) {
+                return false;
+            }
+            RenderVariable other = (RenderVariable) obj;
+            return name.equals(other.name)
+                    && (type == null ? other.type == null : type.equals(other.type));
+        }
+    }
+
+    /**
+     * Collect variables of render() and renderPartial() of the whole
+     * controller.
+     */
+    private static final class YiiControllerVisitor extends DefaultVisitor {
+
+        // /* @var $model User */, /** @var User $model */
+        private static final Pattern VAR_NAME_TYPE_PATTERN = Pattern.compile("@var\\s+(\\$[A-Za-z_][A-Za-z0-9_]*)\\s+([\\\\A-Za-z_][\\\\A-Za-z0-9_]*)"); // NOI18N
+        private static final Pattern VAR_TYPE_NAME_PATTERN = Pattern.compile("@var\\s+([\\\\A-Za-z_][\\\\A-Za-z0-9_]*)\\s+(\\$[A-Za-z_][A-Za-z0-9_]*)"); // NOI18N
+        private static final Pattern VIEW_VAR_PATTERN = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*"); // NOI18N
+        private static final String FIND_PREFIX = "find"; // NOI18N
+        private static final String FIND_ALL_PREFIX = "findAll"; // NOI18N
+        private final CharSequence text;
+        // view path -> variables
+        private final Map<String, Set<RenderVariable>> viewVariables = new HashMap<>();
+        // action method name -> variables (for dynamic view paths)
+        private final Map<String, Set<RenderVariable>> actionVariables = new HashMap<>();
+        // variable name -> type in the current method
+        private final Map<String, String> types = new HashMap<>();
+        private final Map<String, String> docTypes = new HashMap<>();
+        private final List<Comment> comments = new ArrayList<>();
+        private String methodName;
+
+        public YiiControllerVisitor(CharSequence text) {
+            this.text = text;
+        }
+
+        @Override
+        public void visit(Program program) {
+            comments.addAll(program.getComments());
+            super.visit(program);
+        }
+
+        @Override
+        public void visit(MethodDeclaration node) {
+            methodName = CodeUtils.extractMethodName(node);
+            types.clear();
+            docTypes.clear();
+            for (Comment comment : comments) {
+                if (node.getStartOffset() <= comment.getStartOffset()
+                        && comment.getEndOffset() <= node.getEndOffset()) {
+                    addDocTypes(comment);
+                }
+            }
+            super.visit(node);
+            methodName = null;
+        }
+
+        @Override
+        public void visit(Assignment node) {
+            Type operator = node.getOperator();
+            if (methodName != null && operator == Type.EQUAL) {
+                VariableBase leftHandSide = node.getLeftHandSide();
+                if (leftHandSide instanceof Variable) {
+                    String variable = CodeUtils.extractVariableName((Variable) leftHandSide);
+                    String type = getType(node.getRightHandSide());
+                    if (variable != null && type != null) {
+                        types.put(variable, type);
+                    }
+                }
+            }
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(MethodInvocation node) {
+            super.visit(node);
+            if (methodName == null || !isThis(node.getDispatcher())) {
+                return;
+            }
+            FunctionInvocation fi = node.getMethod();
+            String invokedMethodName = CodeUtils.extractFunctionName(fi);
+            if (invokedMethodName == null) {
+                return;
+            }
+            List<Expression> params = fi.getParameters();
+            switch (invokedMethodName) {
+                case "render": // NOI18N
+                case "renderPartial": // NOI18N
+                    addVariables(params);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void addVariables(List<Expression> params) {
+            if (params.isEmpty()) {
+                return;
+            }
+            String viewPath = YiiCodeUtils.getStringValue(params.get(0));
+            Set<RenderVariable> variables = new LinkedHashSet<>();
+            if (params.size() > 1 && params.get(1) instanceof ArrayCreation) {
+                ArrayCreation array = (ArrayCreation) params.get(1);
+                for (ArrayElement element : array.getElements()) {
+                    String varName = YiiCodeUtils.getStringValue(element.getKey()).trim();
+                    if (!VIEW_VAR_PATTERN.matcher(varName).matches()) {
+                        continue;
+                    }
+                    varName = "$" + varName; // NOI18N
+                    String type = getType(element.getValue());
+                    if (type == null) {
+                        // array('model' => $model)
+                        type = getVariableType(varName);
+                    }
+                    variables.add(new RenderVariable(varName, type));
+                }
+            }
+            if (viewPath.isEmpty()) {
+                // e.g. render($view, array(...))
+                addAll(actionVariables, methodName, variables);
+            } else {
+                addAll(viewVariables, viewPath, variables);
+            }
+        }
+
+        private static void addAll(Map<String, Set<RenderVariable>> map, String key, Set<RenderVariable> variables) {
+            Set<RenderVariable> current = map.get(key);
+            if (current == null) {
+                current = new LinkedHashSet<>();
+                map.put(key, current);
+            }
+            current.addAll(variables);
+        }
+
+        /**
+         * Infer the type of the expression.
+         *
+         * @return class name if it is known, otherwise null
+         */
+        private String getType(Expression expression) {
+            if (expression instanceof ClassInstanceCreation) {
+                // new User
+                ClassInstanceCreation instance = (ClassInstanceCreation) expression;
+                return CodeUtils.extractQualifiedName(instance.getClassName().getName());
+            }
+            if (expression instanceof Variable) {
+                return getVariableType(CodeUtils.extractVariableName((Variable) expression));
+            }
+            if (expression instanceof MethodInvocation) {
+                // User::model()->findByPk($id)
+                MethodInvocation invocation = (MethodInvocation) expression;
+                String name = CodeUtils.extractFunctionName(invocation.getMethod());
+                if (name == null || !name.startsWith(FIND_PREFIX) || name.startsWith(FIND_ALL_PREFIX)) {
+                    return null;
+                }
+                VariableBase dispatcher = invocation.getDispatcher();
+                if (dispatcher instanceof StaticMethodInvocation) {
+                    StaticMethodInvocation model = (StaticMethodInvocation) dispatcher;
+                    if ("model".equals(CodeUtils.extractFunctionName(model.getMethod()))) { // NOI18N
+                        return CodeUtils.extractQualifiedName(model.getClassName());
+                    }
+                }
+            }
+            return null;
+        }
+
+        private String getVariableType(String variable) {
+            if (variable == null) {
+                return null;
+            }
+            String type = docTypes.get(variable);
+            if (type != null) {
+                return type;
+            }
+            return types.get(variable);
+        }
+
+        private void addDocTypes(Comment comment) {
+            int start = comment.getStartOffset();
+            int end = comment.getEndOffset();
+            if (start < 0 || text.length() < end) {
+                return;
+            }
+            String commentText = text.subSequence(start, end).toString();
+            Matcher matcher = VAR_NAME_TYPE_PATTERN.matcher(commentText);
+            while (matcher.find()) {
+                docTypes.put(matcher.group(1), matcher.group(2));
+            }
+            matcher = VAR_TYPE_NAME_PATTERN.matcher(commentText);
+            while (matcher.find()) {
+                docTypes.put(matcher.group(2), matcher.group(1));
+            }
+        }
+
+        private static boolean isThis(VariableBase dispatcher) {
+            return dispatcher instanceof Variable
+                    && "$this".equals(CodeUtils.extractVariableName((Variable) dispatcher)); // NOI18N
+        }
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.editor.completion;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.swing.Action;
+import org.nbphpcouncil.modules.php.yii.editor.YiiRenderVariableCache;
+import org.nbphpcouncil.modules.php.yii.util.YiiUtils;
+import org.netbeans.modules.php.api.editor.PhpVariable;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.netbeans.spi.editor.completion.CompletionDocumentation;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.NbBundle;
+
+/**
+ * Documentation of a view or a class file for completion items. The first
+ * lines, the class doc comment and the variables of the view are shown.
+ *
+ * Only the head of the file is read, and documentation is cached per file
+ * and time stamp.
+ *
+ * @author junichi11
+ */
+public final class YiiCompletionDocumentation implements CompletionDocumentation {
+
+    private static final int MAX_CHARS = 8192;
+    private static final int MAX_LINES = 15;
+    private static final int MAX_CACHE_SIZE = 64;
+    private static final Pattern CLASS_DOC_PATTERN = Pattern.compile("/\\*\\*(.*?)\\*/\\s*(?:abstract\\s+|final\\s+)?class\\s", Pattern.DOTALL); // NOI18N
+    private static final Pattern VAR_PATTERN = Pattern.compile("@var\\s+(?:([\\\\A-Za-z_][\\\\A-Za-z0-9_]*)\\s+)?(\\$[A-Za-z_][A-Za-z0-9_]*)(?:\\s+([\\\\A-Za-z_][\\\\A-Za-z0-9_]*))?"); // NOI18N
+    private static final Logger LOGGER = Logger.getLogger(YiiCompletionDocumentation.class.getName());
+    // @GuardedBy("CACHE")
+    private static final Map<FileObject, YiiCompletionDocumentation> CACHE = new LinkedHashMap<FileObject, YiiCompletionDocumentation>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<FileObject, YiiCompletionDocumentation> eldest) {
+            return size() > MAX_CACHE_SIZE;
+        }
+    };
+    private final String text;
+    private final long lastModified;
+
+    private YiiCompletionDocumentation(String text, long lastModified) {
+        this.text = text;
+        this.lastModified = lastModified;
+    }
+
+    /**
+     * Get documentation of the file. Don't call in the EDT.
+     *
+     * @param file view or class file
+     * @return documentation, null if the file can't be read
+     */
+    public static YiiCompletionDocumentation create(FileObject file) {
+        if (file == null || !file.isValid() || !file.isData()) {
+            return null;
+        }
+        long lastModified = file.lastModified().getTime();
+        synchronized (CACHE) {
+            YiiCompletionDocumentation documentation = CACHE.get(file);
+            if (documentation != null && documentation.lastModified == lastModified) {
+                return documentation;
+            }
+        }
+        String head = readHead(file);
+        if (head == null) {
+            return null;
+        }
+        YiiCompletionDocumentation documentation = new YiiCompletionDocumentation(createText(file, head), lastModified);
+        synchronized (CACHE) {
+            CACHE.put(file, documentation);
+        }
+        return documentation;
+    }
+
+    @NbBundle.Messages({
+        "YiiCompletionDocumentation.variables=Variables",
+        "YiiCompletionDocumentation.source=Source"
+    })
+    private static String createText(FileObject file, String head) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<b>").append(escape(getDisplayPath(file))).append("</b>"); // NOI18N
+
+        // class doc comment
+        Matcher matcher = CLASS_DOC_PATTERN.matcher(head);
+        if (matcher.find()) {
+            sb.append("<p>").append(escape(getDescription(matcher.group(1)))).append("</p>"); // NOI18N
+        }
+
+        // variables of the view
+        if (YiiUtils.isView(file)) {
+            Map<String, String> variables = getViewVariables(file, head);
+            if (!variables.isEmpty()) {
+                sb.append("<h4>").append(Bundle.YiiCompletionDocumentation_variables()).append("</h4><ul>"); // NOI18N
+                for (Map.Entry<String, String> entry : variables.entrySet()) {
+                    sb.append("<li><code>").append(escape(entry.getKey())); // NOI18N
+                    if (entry.getValue() != null) {
+                        sb.append(" ").append(escape(entry.getValue())); // NOI18N
+                    }
+                    sb.append("</code></li>"); // NOI18N
+                }
+                sb.append("</ul>"); // NOI18N
+            }
+        }
+
+        // first lines
+        sb.append("<h4>").append(Bundle.YiiCompletionDocumentation_source()).append("</h4><pre>"); // NOI18N
+        String[] lines = head.split("\r\n|\r|\n", MAX_LINES + 1); // NOI18N
+        for (int i = 0; i < lines.length && i < MAX_LINES; i++) {
+            sb.append(escape(lines[i])).append("\n"); // NOI18N
+        }
+        sb.append("</pre>"); // NOI18N
+        return sb.toString();
+    }
+
+    /**
+     * Get variables which are passed from the controller or declared with
+     * {@code @var} comments.
+     *
+     * @return variable name and type (nullable)
+     */
+    private static Map<String, String> getViewVariables(FileObject view, String head) {
+        Map<String, String> variables = new LinkedHashMap<>();
+        Matcher matcher = VAR_PATTERN.matcher(head);
+        while (matcher.find()) {
+            String type = matcher.group(1) != null ? matcher.group(1) : matcher.group(3);
+            variables.put(matcher.group(2), type);
+        }
+        FileObject controller = YiiUtils.getController(view);
+        if (controller != null) {
+            for (PhpVariable variable : YiiRenderVariableCache.getVariables(controller, view)) {
+                String name = variable.getName();
+                if (variables.get(name) == null) {
+                    variables.put(name, variable.getType() == null ? null : variable.getType().getName());
+                }
+            }
+        }
+        return variables;
+    }
+
+    private static String getDescription(String docComment) {
+        StringBuilder sb = new StringBuilder();
+        for (String line : docComment.split("\r\n|\r|\n")) { // NOI18N
+            line = line.trim();
+            if (line.startsWith("*")) { // NOI18N
+                line = line.substring(1).trim();
+            }
+            if (line.startsWith("@")) { // NOI18N
+                // tags
+                break;
+            }
+            if (!line.isEmpty()) {
+                if (sb.length() > 0) {
+                    sb.append(" "); // NOI18N
+                }
+                sb.append(line);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String getDisplayPath(FileObject file) {
+        PhpModule phpModule = PhpModule.Factory.forFileObject(file);
+        if (phpModule != null) {
+            FileObject sourceDirectory = phpModule.getSourceDirectory();
+            if (sourceDirectory != null && FileUtil.isParentOf(sourceDirectory, file)) {
+                return FileUtil.getRelativePath(sourceDirectory, file);
+            }
+        }
+        return file.getNameExt();
+    }
+
+    /**
+     * Read at most {@link #MAX_CHARS} characters of the file.
+     *
+     * @return head of the file, null if it can't be read
+     */
+    private static String readHead(FileObject file) {
+        char[] buffer = new char[MAX_CHARS];
+        int length = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            int read;
+            while (length < MAX_CHARS && (read = reader.read(buffer, length, MAX_CHARS - length)) != -1) {
+                length += read;
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, null, ex);
+            return null;
+        }
+        return new String(buffer, 0, length);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;"); // NOI18N
+    }
+
+    @Override
+    public String getText() {
+        return text;
+    }
+
+    @Override
+    public URL getURL() {
+        return null;
+    }
+
+    @Override
+    public CompletionDocumentation resolveLink(String link) {
+        return null;
+    }
+
+    @Override
+    public Action getGotoSourceAction() {
+        return null;
+    }
+}
@@ -47,13 +47,20 @@ import java.awt.Graphics;
 import java.awt.event.KeyEvent;
 import javax.swing.ImageIcon;
 import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
 import javax.swing.text.StyledDocument;
 import org.nbphpcouncil.modules.php.yii.Yii;
+import org.nbphpcouncil.modules.php.yii.editor.completion.methods.Method;
 import org.netbeans.api.editor.completion.Completion;
+import org.netbeans.spi.editor.completion.CompletionDocumentation;
 import org.netbeans.spi.editor.completion.CompletionItem;
+import org.netbeans.spi.editor.completion.CompletionResultSet;
 import org.netbeans.spi.editor.completion.CompletionTask;
+import org.netbeans.spi.editor.completion.support.AsyncCompletionQuery;
+import org.netbeans.spi.editor.completion.support.AsyncCompletionTask;
 import org.netbeans.spi.editor.completion.support.CompletionUtilities;
+import org.openide.filesystems.FileObject;
 import org.openide.util.Exceptions;
 import org.openide.util.ImageUtilities;
 
@@ -66,13 +73,27 @@ public class YiiCompletionItem implements CompletionItem {
     private final String text;
     private final int startOffset;
     private final int removeLength;
+    private final Method method;
     private final static ImageIcon fieldIcon = new ImageIcon(ImageUtilities.loadImage(Yii.YII_ICON_16));
     private final static Color fieldColor = Color.decode("0x0099cc"); // NOI18N
 
     public YiiCompletionItem(String text, int startOffset, int removeLength) {
+        this(text, startOffset, removeLength, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param text text
+     * @param startOffset start offset
+     * @param removeLength remove length
+     * @param method method which provides the target file for documentation
+     */
+    public YiiCompletionItem(String text, int startOffset, int removeLength, Method method) {
         this.text = text;
         this.startOffset = startOffset;
         this.removeLength = removeLength;
+        this.method = method;
     }
 
     @Override
@@ -103,7 +124,25 @@ public class YiiCompletionItem implements CompletionItem {
 
     @Override
     public CompletionTask createDocumentationTask() {
-        return null;
+        if (method == null) {
+            return null;
+        }
+        return new AsyncCompletionTask(new AsyncCompletionQuery() {
+            @Override
+            protected void query(CompletionResultSet resultSet, Document doc, int caretOffset) {
+                try {
+                    FileObject target = method.getTargetFile(text);
+                    if (target != null) {
+                        CompletionDocumentation documentation = YiiCompletionDocumentation.create(target);
+                        if (documentation != null) {
+                            resultSet.setDocumentation(documentation);
+                        }
+                    }
+                } finally {
+                    resultSet.finish();
+                }
+            }
+        });
     }
 
     @Override
@@ -41,13 +41,25 @@
  */
 package org.nbphpcouncil.modules.php.yii.editor.completion;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import javax.swing.text.BadLocationException;
 import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
+import org.nbphpcouncil.modules.php.yii.editor.completion.methods.Method;
+import org.nbphpcouncil.modules.php.yii.util.YiiDocUtils;
 import org.nbphpcouncil.modules.php.yii.util.YiiUtils;
+import org.netbeans.api.lexer.Token;
+import org.netbeans.api.lexer.TokenSequence;
 import org.netbeans.modules.editor.NbEditorUtilities;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.netbeans.modules.php.editor.lexer.PHPTokenId;
 import org.netbeans.spi.editor.completion.CompletionProvider;
+import org.netbeans.spi.editor.completion.CompletionResultSet;
 import org.netbeans.spi.editor.completion.CompletionTask;
+import org.netbeans.spi.editor.completion.support.AsyncCompletionQuery;
+import org.netbeans.spi.editor.completion.support.AsyncCompletionTask;
 import org.openide.filesystems.FileObject;
 
 /**
@@ -81,4 +93,187 @@ public abstract class YiiCompletionProvider implements CompletionProvider {
     public int getAutoQueryTypes(JTextComponent jtc, String string) {
         return 0;
     }
+
+    /**
+     * Create a task which adds elements of the method.
+     *
+     * @param method method
+     * @param component component
+     * @return completion task
+     */
+    protected static CompletionTask createTask(final Method method, JTextComponent component) {
+        return new AsyncCompletionTask(new AsyncCompletionQueryImpl(method), component) {
+            @Override
+            public void cancel() {
+                // stop collecting elements early
+                method.cancel();
+                super.cancel();
+            }
+        };
+    }
+
+    /**
+     * Get the previous token of the string at the caret position. Whitespaces
+     * and comments are skipped.
+     *
+     * @param ts token sequence
+     * @param caretOffset caret offset
+     * @return text of the previous token if the caret is in a string,
+     * otherwise null
+     */
+    protected static String getPreviousTokenText(TokenSequence<PHPTokenId> ts, int caretOffset) {
+        ts.move(caretOffset);
+        if (!ts.moveNext() || ts.token().id() != PHPTokenId.PHP_CONSTANT_ENCAPSED_STRING) {
+            return null;
+        }
+        while (ts.movePrevious()) {
+            Token<PHPTokenId> token = ts.token();
+            switch (token.id()) {
+                case WHITESPACE:
+                case PHP_COMMENT:
+                case PHP_COMMENT_START:
+                case PHP_COMMENT_END:
+                case PHP_LINE_COMMENT:
+                case PHPDOC_COMMENT:
+                case PHPDOC_COMMENT_START:
+                case PHPDOC_COMMENT_END:
+                    continue;
+                default:
+                    return token.text().toString();
+            }
+        }
+        return null;
+    }
+
+    static class AsyncCompletionQueryImpl extends AsyncCompletionQuery {
+
+        private final Method method;
+        private int startOffset;
+        private int removeLength;
+        private String filter;
+        // last candidates for filtering
+        private List<String> elements = Collections.emptyList();
+        private boolean hasAdditionalElements = false;
+        private String newFilter;
+
+        public AsyncCompletionQueryImpl(Method method) {
+            this.method = method;
+        }
+
+        @Override
+        protected void query(CompletionResultSet resultSet, Document document, int caretOffset) {
+            try {
+                if (method == null) {
+                    return;
+                }
+                TokenSequence<PHPTokenId> ts = YiiDocUtils.getTokenSequence(document);
+                ts.move(caretOffset);
+                ts.moveNext();
+                Token<PHPTokenId> token = ts.token();
+
+                // check whether target is string ('' or "")
+                if (token.id() != PHPTokenId.PHP_CONSTANT_ENCAPSED_STRING) {
+                    return;
+                }
+
+                // initialize startOffset, removeLength, filter
+                init(ts, caretOffset);
+
+                // add items
+                elements = method.getElements(filter);
+                hasAdditionalElements = method.hasAdditionalElements();
+                for (String element : elements) {
+                    if (isTaskCancelled()) {
+                        return;
+                    }
+                    resultSet.addItem(method.createCompletionItem(element, startOffset, removeLength));
+                }
+                resultSet.setHasAdditionalItems(hasAdditionalElements);
+
+            } finally {
+                resultSet.finish();
+            }
+        }
+
+        /**
+         * Filter the last elements while the caret is in the same segment of
+         * the same string literal. Query again if a separator (/ or .) is
+         * typed, since children of another directory are needed.
+         *
+         * @param component
+         * @return true if the last elements can be filtered, otherwise false
+         */
+        @Override
+        protected boolean canFilter(JTextComponent component) {
+            newFilter = null;
+            if (filter == null || hasAdditionalElements) {
+                return false;
+            }
+            int caretOffset = component.getCaretPosition();
+            int length = caretOffset - startOffset;
+            if (length < filter.length()) {
+                return false;
+            }
+            String text;
+            try {
+                text = component.getDocument().getText(startOffset, length);
+            } catch (BadLocationException ex) {
+                return false;
+            }
+            if (!text.startsWith(filter)) {
+                return false;
+            }
+            String typed = text.substring(filter.length());
+            for (char c : typed.toCharArray()) {
+                if (c == '/' || c == '.' || c == '\'' || c == '"' || Character.isWhitespace(c)) {
+                    return false;
+                }
+            }
+            newFilter = text;
+            return true;
+        }
+
+        @Override
+        protected void filter(CompletionResultSet resultSet) {
+            try {
+                if (newFilter == null) {
+                    return;
+                }
+                // the string literal is longer by typed characters
+                removeLength += newFilter.length() - filter.length();
+                filter = newFilter;
+                List<String> filtered = new ArrayList<>();
+                for (String element : elements) {
+                    if (element.startsWith(filter)) {
+                        filtered.add(element);
+                        resultSet.addItem(method.createCompletionItem(element, startOffset, removeLength));
+                    }
+                }
+                elements = filtered;
+            } finally {
+                resultSet.finish();
+            }
+        }
+
+        /**
+         * Initialize
+         *
+         * @param ts token sequence
+         * @param caretOffset caret offset
+         */
+        private void init(TokenSequence<PHPTokenId> ts, int caretOffset) {
+            String caretInput = ts.token().text().toString();
+            startOffset = ts.offset() + 1;
+            removeLength = caretInput.length() - 2;
+            if (removeLength < 0) {
+                removeLength = 0;
+            }
+            int endIndex = caretOffset - startOffset + 1;
+            if (endIndex < 1) {
+                filter = ""; // NOI18N
+            } else {
+                filter = caretInput.substring(1, endIndex);
+            }
+        }
+    }
 }
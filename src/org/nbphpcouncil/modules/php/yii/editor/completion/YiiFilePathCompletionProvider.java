@@ -41,13 +41,12 @@
  */
 package org.nbphpcouncil.modules.php.yii.editor.completion;
 
-import javax.swing.text.Document;
 import javax.swing.text.JTextComponent;
 import org.nbphpcouncil.modules.php.yii.editor.completion.methods.Method;
 import org.nbphpcouncil.modules.php.yii.editor.completion.methods.MethodFactory;
+import org.nbphpcouncil.modules.php.yii.util.YiiCallContext;
 import org.nbphpcouncil.modules.php.yii.util.YiiDocUtils;
 import org.netbeans.api.editor.mimelookup.MimeRegistration;
-import org.netbeans.api.lexer.Token;
 import org.netbeans.api.lexer.TokenSequence;
 import org.netbeans.modules.editor.NbEditorUtilities;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
@@ -55,10 +54,7 @@ import org.netbeans.modules.php.api.util.FileUtils;
 import org.netbeans.modules.php.api.util.StringUtils;
 import org.netbeans.modules.php.editor.lexer.PHPTokenId;
 import org.netbeans.spi.editor.completion.CompletionProvider;
-import org.netbeans.spi.editor.completion.CompletionResultSet;
 import org.netbeans.spi.editor.completion.CompletionTask;
-import org.netbeans.spi.editor.completion.support.AsyncCompletionQuery;
-import org.netbeans.spi.editor.completion.support.AsyncCompletionTask;
 import org.openide.filesystems.FileObject;
 
 /**
@@ -87,86 +83,19 @@ public class YiiFilePathCompletionProvider extends YiiCompletionProvider {
         if (method == null) {
             return null;
         }
-        return new AsyncCompletionTask(new AsyncCompletionQueryImpl(method), component);
+        return createTask(method, component);
     }
 
     private String getMethodName(TokenSequence<PHPTokenId> ts, int offset) {
-        // move to caret position
-        ts.move(offset);
-        ts.moveNext();
-        while (ts.movePrevious()) {
-            Token<PHPTokenId> token = ts.token();
-            PHPTokenId id = token.id();
-            if (id == PHPTokenId.PHP_SEMICOLON) {
-                break;
-            }
-            String text = token.text().toString();
-            if (MethodFactory.METHODS.contains(text) && id == PHPTokenId.PHP_STRING) {
-                return text;
-            }
-        }
-        return null;
-    }
-
-    static class AsyncCompletionQueryImpl extends AsyncCompletionQuery {
-
-        private final Method method;
-        private int startOffset;
-        private int removeLength;
-        private String filter;
-
-        public AsyncCompletionQueryImpl(Method method) {
-            this.method = method;
-        }
-
-        @Override
-        protected void query(CompletionResultSet resultSet, Document document, int caretOffset) {
-            try {
-                if (method == null) {
-                    return;
-                }
-                TokenSequence<PHPTokenId> ts = YiiDocUtils.getTokenSequence(document);
-                ts.move(caretOffset);
-                ts.moveNext();
-                Token<PHPTokenId> token = ts.token();
-
-                // check whether target is string ('' or "")
-                if (token.id() != PHPTokenId.PHP_CONSTANT_ENCAPSED_STRING) {
-                    return;
-                }
-
-                // initialize startOffset, removeLength, filter
-                init(ts, caretOffset);
-
-                // add items
-                for (String element : method.getElements(filter)) {
-                    resultSet.addItem(method.createCompletionItem(element, startOffset, removeLength));
-                }
-
-            } finally {
-                resultSet.finish();
-            }
+        // path is the first parameter
+        YiiCallContext context = YiiCallContext.analyze(ts, offset);
+        if (context == null || context.getArgumentIndex() != 0 || context.getNestingDepth() != 0) {
+            return null;
         }
-
-        /**
-         * Initialize
-         *
-         * @param ts token sequence
-         * @param caretOffset caret offset
-         */
-        private void init(TokenSequence<PHPTokenId> ts, int caretOffset) {
-            String caretInput = ts.token().text().toString();
-            startOffset = ts.offset() + 1;
-            removeLength = caretInput.length() - 2;
-            if (removeLength < 0) {
-                removeLength = 0;
-            }
-            int endIndex = caretOffset - startOffset + 1;
-            if (endIndex < 1) {
-                filter = ""; // NOI18N
-            } else {
-                filter = caretInput.substring(1, endIndex);
-            }
+        String methodName = context.getMethodName();
+        if (MethodFactory.METHODS.contains(methodName)) {
+            return methodName;
         }
+        return null;
     }
 }
@@ -0,0 +1,132 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.editor.completion;
+
+import javax.swing.text.JTextComponent;
+import org.nbphpcouncil.modules.php.yii.editor.completion.methods.MessageCategoryMethod;
+import org.nbphpcouncil.modules.php.yii.editor.completion.methods.MessageKeyMethod;
+import org.nbphpcouncil.modules.php.yii.editor.completion.methods.Method;
+import org.nbphpcouncil.modules.php.yii.util.YiiCallContext;
+import org.nbphpcouncil.modules.php.yii.util.YiiDocUtils;
+import org.netbeans.api.editor.mimelookup.MimeRegistration;
+import org.netbeans.api.lexer.Token;
+import org.netbeans.api.lexer.TokenSequence;
+import org.netbeans.modules.editor.NbEditorUtilities;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.netbeans.modules.php.api.util.FileUtils;
+import org.netbeans.modules.php.api.util.StringUtils;
+import org.netbeans.modules.php.editor.lexer.PHPTokenId;
+import org.netbeans.spi.editor.completion.CompletionProvider;
+import org.netbeans.spi.editor.completion.CompletionTask;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Complete the category and the message key of Yii::t().
+ *
+ * @author junichi11
+ */
+@MimeRegistration(mimeType = FileUtils.PHP_MIME_TYPE, service = CompletionProvider.class)
+public class YiiMessageCompletionProvider extends YiiCompletionProvider {
+
+    private static final String T_METHOD = "t"; // NOI18N
+
+    @Override
+    public CompletionTask createTask(int queryType, JTextComponent component, PhpModule phpModule) {
+        TokenSequence<PHPTokenId> ts = YiiDocUtils.getTokenSequence(component.getDocument());
+        if (ts == null) {
+            return null;
+        }
+
+        YiiCallContext context = YiiCallContext.analyze(ts, component.getCaretPosition());
+        if (context == null
+                || context.getReceiver() != YiiCallContext.Receiver.YII
+                || !T_METHOD.equals(context.getMethodName())
+                || context.getNestingDepth() != 0) {
+            return null;
+        }
+
+        FileObject currentFile = NbEditorUtilities.getFileObject(component.getDocument());
+        Method method;
+        switch (context.getArgumentIndex()) {
+            case 0:
+                method = new MessageCategoryMethod(currentFile, phpModule);
+                break;
+            case 1:
+                String category = getCategory(ts, context.getMethodOffset());
+                if (StringUtils.isEmpty(category)) {
+                    return null;
+                }
+                method = new MessageKeyMethod(currentFile, phpModule, category);
+                break;
+            default:
+                return null;
+        }
+        return createTask(method, component);
+    }
+
+    /**
+     * Get the category (the first parameter).
+     *
+     * @param ts token sequence
+     * @param methodOffset offset of the method name
+     * @return category if it is a string, otherwise null
+     */
+    private String getCategory(TokenSequence<PHPTokenId> ts, int methodOffset) {
+        ts.move(methodOffset);
+        ts.moveNext();
+        while (ts.moveNext()) {
+            Token<PHPTokenId> token = ts.token();
+            PHPTokenId id = token.id();
+            if (id == PHPTokenId.PHP_SEMICOLON) {
+                break;
+            }
+            if (id == PHPTokenId.PHP_CONSTANT_ENCAPSED_STRING) {
+                String text = token.text().toString();
+                if (text.length() < 2) {
+                    return null;
+                }
+                return text.substring(1, text.length() - 1);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.editor.completion;
+
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.text.JTextComponent;
+import org.nbphpcouncil.modules.php.yii.editor.completion.methods.ModelAttributeMethod;
+import org.nbphpcouncil.modules.php.yii.util.YiiCallContext;
+import org.nbphpcouncil.modules.php.yii.util.YiiCallContext.Receiver;
+import org.nbphpcouncil.modules.php.yii.util.YiiDocUtils;
+import org.netbeans.api.editor.mimelookup.MimeRegistration;
+import org.netbeans.api.lexer.TokenSequence;
+import org.netbeans.modules.editor.NbEditorUtilities;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.netbeans.modules.php.api.util.FileUtils;
+import org.netbeans.modules.php.editor.lexer.PHPTokenId;
+import org.netbeans.spi.editor.completion.CompletionProvider;
+import org.netbeans.spi.editor.completion.CompletionTask;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Complete attribute names of models. e.g. $form->textField($model, '|'),
+ * CHtml::activeLabel($model, '|'), $model->getAttributeLabel('|')
+ *
+ * @author junichi11
+ */
+@MimeRegistration(mimeType = FileUtils.PHP_MIME_TYPE, service = CompletionProvider.class)
+public class YiiModelAttributeCompletionProvider extends YiiCompletionProvider {
+
+    private static final String CHTML = "CHtml"; // NOI18N
+    private static final String ACTIVE_PREFIX = "active"; // NOI18N
+    private static final String CHTML_ERROR_METHOD = "error"; // NOI18N
+    // CActiveForm methods: $form->textField($model, $attribute)
+    private static final List<String> FORM_METHODS = Arrays.asList(
+            "label", // NOI18N
+            "labelEx", // NOI18N
+            "textField", // NOI18N
+            "textArea", // NOI18N
+            "passwordField", // NOI18N
+            "hiddenField", // NOI18N
+            "fileField", // NOI18N
+            "emailField", // NOI18N
+            "numberField", // NOI18N
+            "rangeField", // NOI18N
+            "dateField", // NOI18N
+            "timeField", // NOI18N
+            "dateTimeField", // NOI18N
+            "dateTimeLocalField", // NOI18N
+            "weekField", // NOI18N
+            "colorField", // NOI18N
+            "telField", // NOI18N
+            "urlField", // NOI18N
+            "searchField", // NOI18N
+            "checkBox", // NOI18N
+            "checkBoxList", // NOI18N
+            "radioButton", // NOI18N
+            "radioButtonList", // NOI18N
+            "dropDownList", // NOI18N
+            "listBox", // NOI18N
+            "error"); // NOI18N
+    // CModel methods: $model->getAttributeLabel($attribute)
+    private static final List<String> MODEL_METHODS = Arrays.asList(
+            "getAttributeLabel", // NOI18N
+            "generateAttributeLabel", // NOI18N
+            "getError", // NOI18N
+            "getErrors", // NOI18N
+            "hasErrors", // NOI18N
+            "addError", // NOI18N
+            "clearErrors", // NOI18N
+            "isAttributeRequired", // NOI18N
+            "isAttributeSafe", // NOI18N
+            "getAttribute", // NOI18N
+            "setAttribute", // NOI18N
+            "hasAttribute"); // NOI18N
+
+    @Override
+    public CompletionTask createTask(int queryType, JTextComponent component, PhpModule phpModule) {
+        TokenSequence<PHPTokenId> ts = YiiDocUtils.getTokenSequence(component.getDocument());
+        if (ts == null) {
+            return null;
+        }
+
+        int caretOffset = component.getCaretPosition();
+        YiiCallContext context = YiiCallContext.analyze(ts, caretOffset);
+        if (context == null || context.getNestingDepth() != 0) {
+            return null;
+        }
+        FileObject currentFile = NbEditorUtilities.getFileObject(component.getDocument());
+        ModelAttributeMethod method = null;
+        String methodName = context.getMethodName();
+        Receiver receiver = context.getReceiver();
+        if (context.getArgumentIndex() == 1) {
+            boolean isActive = receiver == Receiver.CLASS
+                    && CHTML.equals(context.getReceiverName())
+                    && (methodName.startsWith(ACTIVE_PREFIX) || CHTML_ERROR_METHOD.equals(methodName));
+            boolean isForm = receiver == Receiver.VARIABLE && FORM_METHODS.contains(methodName);
+            if (isActive || isForm) {
+                method = new ModelAttributeMethod(currentFile, phpModule, component.getDocument(), null, context.getMethodOffset());
+            }
+        } else if (context.getArgumentIndex() == 0 && MODEL_METHODS.contains(methodName)) {
+            if (receiver == Receiver.VARIABLE) {
+                method = new ModelAttributeMethod(currentFile, phpModule, component.getDocument(), context.getReceiverName(), context.getMethodOffset());
+            } else if (receiver == Receiver.THIS && currentFile != null) {
+                // in the model class
+                method = new ModelAttributeMethod(currentFile, phpModule, currentFile.getName());
+            }
+        }
+        if (method == null) {
+            return null;
+        }
+        // the type of the model is resolved in the completion query
+        return createTask(method, component);
+    }
+}
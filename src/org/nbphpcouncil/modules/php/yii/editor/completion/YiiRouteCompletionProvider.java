@@ -0,0 +1,124 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.editor.completion;
+
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.text.JTextComponent;
+import org.nbphpcouncil.modules.php.yii.editor.completion.methods.RouteMethod;
+import org.nbphpcouncil.modules.php.yii.util.YiiCallContext;
+import org.nbphpcouncil.modules.php.yii.util.YiiDocUtils;
+import org.netbeans.api.editor.mimelookup.MimeRegistration;
+import org.netbeans.api.lexer.TokenSequence;
+import org.netbeans.modules.editor.NbEditorUtilities;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.netbeans.modules.php.api.util.FileUtils;
+import org.netbeans.modules.php.editor.lexer.PHPTokenId;
+import org.netbeans.spi.editor.completion.CompletionProvider;
+import org.netbeans.spi.editor.completion.CompletionTask;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Complete routes of createUrl(), createAbsoluteUrl(), forward(),
+ * redirect(array(...)), CHtml::link($text, array(...)) and
+ * CHtml::normalizeUrl(array(...)).
+ *
+ * @author junichi11
+ */
+@MimeRegistration(mimeType = FileUtils.PHP_MIME_TYPE, service = CompletionProvider.class)
+public class YiiRouteCompletionProvider extends YiiCompletionProvider {
+
+    private static final String CHTML = "CHtml"; // NOI18N
+    private static final String LINK_METHOD = "link"; // NOI18N
+    private static final String NORMALIZE_URL_METHOD = "normalizeUrl"; // NOI18N
+    private static final String REDIRECT_METHOD = "redirect"; // NOI18N
+    // the route is a string
+    private static final List<String> ROUTE_METHODS = Arrays.asList(
+            "createUrl", // NOI18N
+            "createAbsoluteUrl", // NOI18N
+            "forward"); // NOI18N
+
+    @Override
+    public CompletionTask createTask(int queryType, JTextComponent component, PhpModule phpModule) {
+        TokenSequence<PHPTokenId> ts = YiiDocUtils.getTokenSequence(component.getDocument());
+        if (ts == null) {
+            return null;
+        }
+
+        int caretOffset = component.getCaretPosition();
+        YiiCallContext context = YiiCallContext.analyze(ts, caretOffset);
+        if (context == null || !isRoute(context, ts, caretOffset)) {
+            return null;
+        }
+        // e.g. Yii::app()->createUrl()
+        boolean isAbsolute = context.getReceiver() == YiiCallContext.Receiver.YII_APP;
+        FileObject currentFile = NbEditorUtilities.getFileObject(component.getDocument());
+        return createTask(new RouteMethod(currentFile, phpModule, isAbsolute), component);
+    }
+
+    private boolean isRoute(YiiCallContext context, TokenSequence<PHPTokenId> ts, int caretOffset) {
+        String methodName = context.getMethodName();
+        int argumentIndex = context.getArgumentIndex();
+        int nestingDepth = context.getNestingDepth();
+        if (ROUTE_METHODS.contains(methodName)) {
+            return argumentIndex == 0 && nestingDepth == 0;
+        }
+        // the route is the first element of the array, a string is an url
+        if (REDIRECT_METHOD.equals(methodName)) {
+            return argumentIndex == 0 && nestingDepth == 1 && isFirstElement(ts, caretOffset);
+        }
+        if (context.getReceiver() == YiiCallContext.Receiver.CLASS && CHTML.equals(context.getReceiverName())) {
+            if (LINK_METHOD.equals(methodName)) {
+                return argumentIndex == 1 && nestingDepth == 1 && isFirstElement(ts, caretOffset);
+            }
+            if (NORMALIZE_URL_METHOD.equals(methodName)) {
+                return argumentIndex == 0 && nestingDepth == 1 && isFirstElement(ts, caretOffset);
+            }
+        }
+        return false;
+    }
+
+    private boolean isFirstElement(TokenSequence<PHPTokenId> ts, int caretOffset) {
+        String previous = getPreviousTokenText(ts, caretOffset);
+        return "(".equals(previous) || "[".equals(previous); // NOI18N
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.editor.completion;
+
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.text.JTextComponent;
+import org.nbphpcouncil.modules.php.yii.editor.completion.methods.WidgetPropertyMethod;
+import org.nbphpcouncil.modules.php.yii.util.YiiCallContext;
+import org.nbphpcouncil.modules.php.yii.util.YiiDocUtils;
+import org.netbeans.api.editor.mimelookup.MimeRegistration;
+import org.netbeans.api.lexer.Token;
+import org.netbeans.api.lexer.TokenSequence;
+import org.netbeans.api.lexer.TokenUtilities;
+import org.netbeans.modules.editor.NbEditorUtilities;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.netbeans.modules.php.api.util.FileUtils;
+import org.netbeans.modules.php.api.util.StringUtils;
+import org.netbeans.modules.php.editor.lexer.PHPTokenId;
+import org.netbeans.spi.editor.completion.CompletionProvider;
+import org.netbeans.spi.editor.completion.CompletionTask;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Complete widget properties in keys of the properties array (the second
+ * parameter of widget methods).
+ *
+ * @author junichi11
+ */
+@MimeRegistration(mimeType = FileUtils.PHP_MIME_TYPE, service = CompletionProvider.class)
+public class YiiWidgetPropertyCompletionProvider extends YiiCompletionProvider {
+
+    private static final List<String> METHODS = Arrays.asList(
+            "widget", // NOI18N
+            "beginWidget", // NOI18N
+            "createWidget"); // NOI18N
+
+    @Override
+    public CompletionTask createTask(int queryType, JTextComponent component, PhpModule phpModule) {
+        TokenSequence<PHPTokenId> ts = YiiDocUtils.getTokenSequence(component.getDocument());
+        if (ts == null) {
+            return null;
+        }
+
+        int caretOffset = component.getCaretPosition();
+        if (!isArrayKey(ts, caretOffset)) {
+            return null;
+        }
+        YiiCallContext context = YiiCallContext.analyze(ts, caretOffset);
+        if (context == null
+                || !METHODS.contains(context.getMethodName())
+                || context.getArgumentIndex() != 1
+                || context.getNestingDepth() != 1) {
+            return null;
+        }
+        String widgetClassName = getWidgetClassName(ts, context.getMethodOffset());
+        if (StringUtils.isEmpty(widgetClassName)) {
+            return null;
+        }
+
+        FileObject currentFile = NbEditorUtilities.getFileObject(component.getDocument());
+        return createTask(new WidgetPropertyMethod(currentFile, phpModule, widgetClassName), component);
+    }
+
+    /**
+     * Check whether the string of the caret position is an array key. i.e.
+     * it follows "(", "[" or ",".
+     *
+     * @param ts token sequence
+     * @param caretOffset caret offset
+     * @return true if it is a key, otherwise false
+     */
+    private boolean isArrayKey(TokenSequence<PHPTokenId> ts, int caretOffset) {
+        String previous = getPreviousTokenText(ts, caretOffset);
+        return "(".equals(previous) // NOI18N
+                || "[".equals(previous) // NOI18N
+                || ",".equals(previous); // NOI18N
+    }
+
+    /**
+     * Get the widget class name from the first parameter. If it is a path
+     * alias, the last segment is used.
+     *
+     * @param ts token sequence
+     * @param methodOffset offset of the method name
+     * @return class name if the first parameter is a string, otherwise null
+     */
+    private String getWidgetClassName(TokenSequence<PHPTokenId> ts, int methodOffset) {
+        ts.move(methodOffset);
+        ts.moveNext();
+        while (ts.moveNext()) {
+            Token<PHPTokenId> token = ts.token();
+            PHPTokenId id = token.id();
+            if (id == PHPTokenId.PHP_CONSTANT_ENCAPSED_STRING) {
+                String text = token.text().toString();
+                if (text.length() < 2) {
+                    return null;
+                }
+                String path = text.substring(1, text.length() - 1);
+                return path.substring(path.lastIndexOf('.') + 1);
+            }
+            if (id == PHPTokenId.PHP_TOKEN && TokenUtilities.textEquals(token.text(), ",")) { // NOI18N
+                return null;
+            }
+        }
+        return null;
+    }
+}
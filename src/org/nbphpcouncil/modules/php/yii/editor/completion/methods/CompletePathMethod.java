@@ -41,13 +41,20 @@
  */
 package org.nbphpcouncil.modules.php.yii.editor.completion.methods;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.nbphpcouncil.modules.php.yii.YiiDirectoryIndex;
 import org.nbphpcouncil.modules.php.yii.YiiModule;
-import org.nbphpcouncil.modules.php.yii.YiiModule.PATH_ALIAS;
 import org.nbphpcouncil.modules.php.yii.YiiModuleFactory;
-import org.nbphpcouncil.modules.php.yii.util.YiiPathAliasSupport;
+import org.nbphpcouncil.modules.php.yii.util.PathAliasTrie;
 import org.nbphpcouncil.modules.php.yii.util.YiiUtils;
 import org.nbphpcouncil.modules.php.yii.util.YiiViewPathSupport;
 import org.netbeans.modules.parsing.spi.indexing.support.QuerySupport;
@@ -58,7 +65,9 @@ import org.netbeans.modules.php.editor.api.ElementQueryFactory;
 import org.netbeans.modules.php.editor.api.NameKind;
 import org.netbeans.modules.php.editor.api.QuerySupportFactory;
 import org.netbeans.modules.php.editor.api.elements.ClassElement;
+import org.netbeans.modules.php.editor.api.elements.TypeElement;
 import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
 
 /**
  *
@@ -69,6 +78,17 @@ public abstract class CompletePathMethod extends Method {
     private static final String SLASH = "/"; // NOI18N
     private static final String DOUBLE_SLASH = "//"; // NOI18N
     private static final String DOT = "."; // NOI18N
+    private static final int MAX_CLASSES = 100;
+    private static final String WIDGET_CLASS = "CWidget"; // NOI18N
+    // ranks of classes
+    private static final int RANK_MODULE = 0;
+    private static final int RANK_APPLICATION = 1;
+    private static final int RANK_EXT = 2;
+    private static final int RANK_FRAMEWORK = 3;
+    private static final int RANK_OTHER = 4;
+    private volatile boolean hasAdditionalElements = false;
+    // element -> file of the last elements for documentation
+    private final Map<String, FileObject> targetFiles = new ConcurrentHashMap<>();
 
     public CompletePathMethod(FileObject currentFile, PhpModule phpModule) {
         super(currentFile, phpModule);
@@ -76,6 +96,8 @@ public abstract class CompletePathMethod extends Method {
 
     @Override
     public List<String> getElements(String target) {
+        hasAdditionalElements = false;
+        targetFiles.clear();
         List<String> elements = new LinkedList<>();
         if (useViewPath()) {
             elements.addAll(getViewPathElements(target));
@@ -111,15 +133,16 @@ public abstract class CompletePathMethod extends Method {
 
             // add element
             if (targetDirectory != null) {
-                for (FileObject child : targetDirectory.getChildren()) {
+                YiiDirectoryIndex directoryIndex = YiiModuleFactory.create(phpModule).getDirectoryIndex();
+                for (FileObject child : directoryIndex.getChildren(targetDirectory, filter)) {
                     String name = child.getName();
-                    if (!name.startsWith(filter)) {
-                        continue;
-                    }
                     if (child.isFolder()) {
                         name = name + SLASH;
                     }
-                    addElement(elements, target, subPath, name);
+                    String element = addElement(elements, target, subPath, name);
+                    if (child.isData()) {
+                        targetFiles.put(element, child);
+                    }
                 }
             }
         }
@@ -187,7 +210,7 @@ public abstract class CompletePathMethod extends Method {
         return filter;
     }
 
-    private void addElement(List<String> elements, String target, String subPath, String name) {
+    private String addElement(List<String> elements, String target, String subPath, String name) {
         StringBuilder sb = new StringBuilder();
         if (YiiViewPathSupport.isAppPath(target)) {
             sb.append(DOUBLE_SLASH);
@@ -199,53 +222,41 @@ public abstract class CompletePathMethod extends Method {
             sb.append(SLASH);
         }
         sb.append(name);
-        elements.add(sb.toString());
+        String element = sb.toString();
+        elements.add(element);
+        return element;
     }
 
     private List<String> getPathAliasElements(String target) {
         List<String> elements = new LinkedList<>();
-        int firstDot = target.indexOf(DOT);
-        String pathAliasName = ""; // NOI18N
-        if (firstDot > 1) {
-            pathAliasName = target.substring(0, firstDot);
-        }
-
-        PATH_ALIAS pathAlias = YiiPathAliasSupport.toPathAlias(pathAliasName);
-        if (pathAlias != PATH_ALIAS.NONE) {
-            String subPath = ""; // NOI18N
-            String filter = ""; // NOI18N
-            String subPathForFind = ""; // NOI18N
-
-            // get base directory for path alias
-            YiiModule yiiModule = YiiModuleFactory.create(phpModule);
-            FileObject baseDirectory = yiiModule.getDirectory(pathAlias);
-
-            if (baseDirectory != null) {
-                int lastDot = target.lastIndexOf(DOT);
-                if (firstDot == lastDot) {
-                    filter = target.substring(firstDot + 1);
-                } else {
-                    subPath = target.substring(firstDot + 1, lastDot);
-                    subPathForFind = subPath.replaceAll("\\.", SLASH); // NOI18N
-                    filter = target.substring(lastDot + 1);
+        YiiModule yiiModule = YiiModuleFactory.create(phpModule);
+        PathAliasTrie<FileObject> pathAliases = yiiModule.getPathAliases();
+        int lastDot = target.lastIndexOf(DOT);
+        if (lastDot > 0) {
+            // get parent directory for completion
+            String parentPath = target.substring(0, lastDot);
+            PathAliasTrie.Match<FileObject> match = pathAliases.find(parentPath);
+            if (match != null) {
+                StringBuilder subPathForFind = new StringBuilder();
+                for (String segment : match.getRest()) {
+                    if (subPathForFind.length() > 0) {
+                        subPathForFind.append(SLASH);
+                    }
+                    subPathForFind.append(segment);
                 }
-
-                // get parent directory for completion
-                FileObject targetDirectory = baseDirectory.getFileObject(subPathForFind);
+                String filter = target.substring(lastDot + 1);
+                FileObject targetDirectory = match.getValue().getFileObject(subPathForFind.toString());
                 if (targetDirectory != null) {
                     // add elememts
-                    for (FileObject child : targetDirectory.getChildren()) {
+                    for (FileObject child : yiiModule.getDirectoryIndex().getChildren(targetDirectory, filter)) {
                         String name = child.getName();
-                        if (!name.startsWith(filter)) {
-                            continue;
-                        }
                         if (child.isFolder()) {
                             name = name + DOT;
                         }
-                        if (StringUtils.isEmpty(subPath)) {
-                            elements.add(pathAliasName + DOT + name);
-                        } else {
-                            elements.add(pathAliasName + DOT + subPath + DOT + name);
+                        String element = parentPath + DOT + name;
+                        elements.add(element);
+                        if (child.isData()) {
+                            targetFiles.put(element, child);
                         }
                     }
                 }
@@ -253,8 +264,10 @@ public abstract class CompletePathMethod extends Method {
         }
 
         if (elements.isEmpty()) {
-            // add default path aliases
-            addDefaultPathAliases(elements);
+            // add path aliases
+            for (String alias : pathAliases.getAliases(target)) {
+                elements.add(alias + DOT);
+            }
 
             // add classes
             addClasses(target, elements);
@@ -262,31 +275,153 @@ public abstract class CompletePathMethod extends Method {
         return elements;
     }
 
-    private void addDefaultPathAliases(List<String> elements) {
-        for (PATH_ALIAS alias : PATH_ALIAS.values()) {
-            if (alias == PATH_ALIAS.NONE) {
-                continue;
+    @Override
+    public boolean hasAdditionalElements() {
+        return hasAdditionalElements;
+    }
+
+    @Override
+    public FileObject getTargetFile(String element) {
+        FileObject file = targetFiles.get(element);
+        if (file != null || !useClasses() || !isClassName(element)) {
+            return file;
+        }
+        // classes are looked up only for the selected item
+        FileObject sourceDirectory = phpModule.getSourceDirectory();
+        if (sourceDirectory == null) {
+            return null;
+        }
+        ElementQuery.Index indexQuery = ElementQueryFactory.createIndexQuery(QuerySupportFactory.get(sourceDirectory));
+        for (ClassElement classElement : indexQuery.getClasses(NameKind.create(element, QuerySupport.Kind.EXACT))) {
+            if (classElement.getFileObject() != null) {
+                return classElement.getFileObject();
             }
-            elements.add(alias.getName() + DOT); // NOI18N
         }
+        return null;
     }
 
+    private static boolean isClassName(String element) {
+        if (element.isEmpty() || !Character.isJavaIdentifierStart(element.charAt(0))) {
+            return false;
+        }
+        for (char c : element.toCharArray()) {
+            if (!Character.isJavaIdentifierPart(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add classes. At most {@link #MAX_CLASSES} classes are added in order of
+     * the current module, the application, ext and the framework. Only
+     * widgets are added for the empty prefix.
+     *
+     * @param target prefix of class name
+     * @param elements elements
+     */
     private void addClasses(String target, List<String> elements) {
-        if (useClasses()) {
-            ElementQuery.Index indexQuery = ElementQueryFactory.createIndexQuery(QuerySupportFactory.get(phpModule.getSourceDirectory()));
-            Set<ClassElement> classElements;
-            if (target.isEmpty()) {
-                classElements = indexQuery.getClasses();
-            } else {
-                classElements = indexQuery.getClasses(NameKind.create(target, QuerySupport.Kind.PREFIX));
+        if (!useClasses()) {
+            return;
+        }
+        YiiModule yiiModule = YiiModuleFactory.create(phpModule);
+        ElementQuery.Index indexQuery = ElementQueryFactory.createIndexQuery(QuerySupportFactory.get(phpModule.getSourceDirectory()));
+        Set<TypeElement> types = new HashSet<>();
+        if (target.isEmpty()) {
+            // don't load all classes of the project and the include path
+            // only widgets e.g. CGridView, CListView, CActiveForm
+            for (ClassElement widget : indexQuery.getClasses(NameKind.create(WIDGET_CLASS, QuerySupport.Kind.EXACT))) {
+                if (isCancelled()) {
+                    return;
+                }
+                types.add(widget);
+                types.addAll(indexQuery.getInheritedByTypes(widget));
+            }
+            // more classes are available if the user types
+            hasAdditionalElements = true;
+        } else {
+            types.addAll(indexQuery.getClasses(NameKind.create(target, QuerySupport.Kind.PREFIX)));
+        }
+        FileObject[] directories = {
+            YiiUtils.getCurrentModuleDirectory(currentFile),
+            yiiModule.getExt(),
+            yiiModule.getApplication(),
+            yiiModule.getSystem()
+        };
+        Map<String, Integer> ranks = new HashMap<>();
+        for (TypeElement element : types) {
+            if (isCancelled()) {
+                return;
+            }
+            String name = element.getName();
+            if (!element.isClass() || !name.startsWith(target)) {
+                continue;
+            }
+            int rank = getRank(element.getFileObject(), directories);
+            Integer current = ranks.get(name);
+            if (current == null || rank < current) {
+                ranks.put(name, rank);
+            }
+        }
+        if (target.isEmpty()) {
+            // widgets of the project are also available from the yii index
+            // e.g. the framework is not in the include path
+            for (String name : yiiModule.getIndex().getWidgetClassNames()) {
+                if (!ranks.containsKey(name)) {
+                    ranks.put(name, RANK_APPLICATION);
+                }
             }
-            for (ClassElement element : classElements) {
-                String name = element.getName();
-                if (name.startsWith(target)) {
-                    elements.add(name);
+        }
+
+        List<Map.Entry<String, Integer>> rankedClasses = new ArrayList<>(ranks.entrySet());
+        Collections.sort(rankedClasses, new Comparator<Map.Entry<String, Integer>>() {
+            @Override
+            public int compare(Map.Entry<String, Integer> o1, Map.Entry<String, Integer> o2) {
+                int result = o1.getValue().compareTo(o2.getValue());
+                if (result != 0) {
+                    return result;
                 }
+                return o1.getKey().compareTo(o2.getKey());
             }
+        });
+        int size = Math.min(rankedClasses.size(), MAX_CLASSES);
+        for (int i = 0; i < size; i++) {
+            elements.add(rankedClasses.get(i).getKey());
+        }
+        if (rankedClasses.size() > MAX_CLASSES) {
+            hasAdditionalElements = true;
+        }
+    }
+
+    /**
+     * Get rank of the class file.
+     *
+     * @param file class file
+     * @param directories module, ext, application and framework directories
+     * @return rank
+     */
+    private static int getRank(FileObject file, FileObject[] directories) {
+        if (file == null) {
+            return RANK_OTHER;
         }
+        // ext is usually in the application directory
+        if (isInDirectory(file, directories[0])) {
+            return RANK_MODULE;
+        }
+        if (isInDirectory(file, directories[1])) {
+            return RANK_EXT;
+        }
+        if (isInDirectory(file, directories[2])) {
+            return RANK_APPLICATION;
+        }
+        if (isInDirectory(file, directories[3])) {
+            return RANK_FRAMEWORK;
+        }
+        return RANK_OTHER;
+    }
+
+    private static boolean isInDirectory(FileObject file, FileObject directory) {
+        return directory != null && FileUtil.isParentOf(directory, file);
     }
 
     public abstract boolean usePathAlias();
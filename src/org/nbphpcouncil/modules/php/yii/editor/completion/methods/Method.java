@@ -55,6 +55,7 @@ public abstract class Method {
 
     protected final FileObject currentFile;
     protected final PhpModule phpModule;
+    private volatile boolean isCancelled = false;
 
     Method(FileObject currentFile, PhpModule phpModule) {
         this.currentFile = currentFile;
@@ -70,7 +71,18 @@ public abstract class Method {
      * @return　CompletionItem
      */
     public CompletionItem createCompletionItem(String element, int startOffset, int removeLength) {
-        return new YiiCompletionItem(element, startOffset, removeLength);
+        return new YiiCompletionItem(element, startOffset, removeLength, this);
+    }
+
+    /**
+     * Get the file of the element for documentation. It is called from the
+     * documentation task, i.e. only for the selected item.
+     *
+     * @param element element
+     * @return file if the element is a file or a class, otherwise null
+     */
+    public FileObject getTargetFile(String element) {
+        return null;
     }
 
     /**
@@ -80,4 +92,25 @@ public abstract class Method {
      * @return
      */
     public abstract List<String> getElements(String filter);
+
+    /**
+     * Check whether the last elements were truncated. i.e. more elements are
+     * available if the user types more characters.
+     *
+     * @return true if there are more elements, otherwise false
+     */
+    public boolean hasAdditionalElements() {
+        return false;
+    }
+
+    /**
+     * Cancel the current query. It is called from the completion task.
+     */
+    public void cancel() {
+        isCancelled = true;
+    }
+
+    protected boolean isCancelled() {
+        return isCancelled;
+    }
 }
@@ -0,0 +1,328 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.editor.completion.methods;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.swing.text.Document;
+import org.nbphpcouncil.modules.php.yii.YiiModule;
+import org.nbphpcouncil.modules.php.yii.YiiModuleFactory;
+import org.nbphpcouncil.modules.php.yii.editor.YiiRenderVariableCache;
+import org.nbphpcouncil.modules.php.yii.util.YiiDocUtils;
+import org.nbphpcouncil.modules.php.yii.util.YiiUtils;
+import org.netbeans.api.lexer.Token;
+import org.netbeans.api.lexer.TokenSequence;
+import org.netbeans.api.lexer.TokenUtilities;
+import org.netbeans.modules.php.api.editor.PhpVariable;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.netbeans.modules.php.api.util.StringUtils;
+import org.netbeans.modules.php.editor.lexer.PHPTokenId;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Complete attributes of the model. e.g. $form->textField($model, '|')
+ *
+ * The type of the variable is resolved in the completion query, not in the
+ * AWT thread.
+ *
+ * @author junichi11
+ */
+public class ModelAttributeMethod extends Method {
+
+    private static final String MODEL_METHOD = "model"; // NOI18N
+    // tokens to scan backward for an assignment
+    private static final int MAX_TOKENS = 5000;
+    private static final Pattern VAR_NAME_TYPE_PATTERN = Pattern.compile("@var\\s+(\\$[A-Za-z_][A-Za-z0-9_]*)\\s+([\\\\A-Za-z_][\\\\A-Za-z0-9_]*)"); // NOI18N
+    private static final Pattern VAR_TYPE_NAME_PATTERN = Pattern.compile("@var\\s+([\\\\A-Za-z_][\\\\A-Za-z0-9_]*)\\s+(\\$[A-Za-z_][A-Za-z0-9_]*)"); // NOI18N
+    private final Document document;
+    private final String variable;
+    private final int methodOffset;
+    private volatile String modelClassName;
+    private volatile boolean isResolved;
+
+    /**
+     * Complete attributes of the class. e.g. $this->getAttributeLabel('|') in
+     * the model class
+     *
+     * @param currentFile current file
+     * @param phpModule php module
+     * @param modelClassName class name
+     */
+    public ModelAttributeMethod(FileObject currentFile, PhpModule phpModule, String modelClassName) {
+        super(currentFile, phpModule);
+        this.document = null;
+        this.variable = null;
+        this.methodOffset = -1;
+        this.modelClassName = modelClassName;
+        this.isResolved = true;
+    }
+
+    /**
+     * Complete attributes of the variable's class.
+     *
+     * @param currentFile current file
+     * @param phpModule php module
+     * @param document current document
+     * @param variable variable name of the receiver e.g. $model, null if the
+     * first parameter of the method is used e.g. CHtml::activeLabel($model,
+     * '|')
+     * @param methodOffset offset of the method name
+     */
+    public ModelAttributeMethod(FileObject currentFile, PhpModule phpModule, Document document, String variable, int methodOffset) {
+        super(currentFile, phpModule);
+        this.document = document;
+        this.variable = variable;
+        this.methodOffset = methodOffset;
+    }
+
+    @Override
+    public List<String> getElements(String filter) {
+        YiiModule yiiModule = YiiModuleFactory.create(phpModule);
+        if (yiiModule == null) {
+            return Collections.emptyList();
+        }
+        String className = getModelClassName(yiiModule);
+        if (StringUtils.isEmpty(className) || !yiiModule.getAttributeCatalog().isModel(className)) {
+            return Collections.emptyList();
+        }
+        List<String> elements = new ArrayList<>();
+        for (String attribute : yiiModule.getAttributeCatalog().getAttributes(className)) {
+            if (attribute.startsWith(filter)) {
+                elements.add(attribute);
+            }
+        }
+        return elements;
+    }
+
+    private String getModelClassName(YiiModule yiiModule) {
+        if (!isResolved) {
+            modelClassName = resolveModelClassName(yiiModule);
+            isResolved = true;
+        }
+        return modelClassName;
+    }
+
+    private String resolveModelClassName(YiiModule yiiModule) {
+        TokenSequence<PHPTokenId> ts = YiiDocUtils.getTokenSequence(document);
+        if (ts == null) {
+            return null;
+        }
+        String name = variable;
+        if (name == null) {
+            name = getFirstParameterVariable(ts, methodOffset);
+        }
+        return getVariableType(ts, name, methodOffset, yiiModule);
+    }
+
+    /**
+     * Get the variable of the first parameter.
+     *
+     * @param ts token sequence
+     * @param methodOffset offset of the method name
+     * @return variable name e.g. $model, null if the first parameter is not
+     * a variable
+     */
+    private static String getFirstParameterVariable(TokenSequence<PHPTokenId> ts, int methodOffset) {
+        ts.move(methodOffset);
+        ts.moveNext();
+        boolean isOpened = false;
+        while (ts.moveNext()) {
+            Token<PHPTokenId> token = ts.token();
+            PHPTokenId id = token.id();
+            if (isSkipped(id)) {
+                continue;
+            }
+            if (!isOpened) {
+                if (!TokenUtilities.textEquals(token.text(), "(")) { // NOI18N
+                    return null;
+                }
+                isOpened = true;
+                continue;
+            }
+            return id == PHPTokenId.PHP_VARIABLE ? token.text().toString() : null;
+        }
+        return null;
+    }
+
+    /**
+     * Get the class name of the variable. Variables of the view which are
+     * passed from the controller, assignments (new Foo, Foo::model()) and
+     * {@code @var} comments before the offset are used. Otherwise the
+     * variable name is used if it is a model. e.g. $post for Post
+     *
+     * @return class name if it is found, otherwise null
+     */
+    private String getVariableType(TokenSequence<PHPTokenId> ts, String variable, int offset, YiiModule yiiModule) {
+        if (StringUtils.isEmpty(variable)) {
+            return null;
+        }
+        if (currentFile != null && YiiUtils.isView(currentFile)) {
+            FileObject controller = YiiUtils.getController(currentFile);
+            if (controller != null) {
+                for (PhpVariable phpVariable : YiiRenderVariableCache.getVariables(controller, currentFile)) {
+                    if (variable.equals(phpVariable.getName()) && phpVariable.getType() != null) {
+                        return phpVariable.getType().getName();
+                    }
+                }
+            }
+        }
+        String type = getAssignedType(ts, variable, offset);
+        if (type != null) {
+            return type;
+        }
+        String className = variable.substring(1);
+        if (!className.isEmpty()) {
+            className = Character.toUpperCase(className.charAt(0)) + className.substring(1);
+            if (yiiModule.getAttributeCatalog().isModel(className)) {
+                return className;
+            }
+        }
+        return null;
+    }
+
+    private static String getAssignedType(TokenSequence<PHPTokenId> ts, String variable, int offset) {
+        ts.move(offset);
+        int count = 0;
+        while (ts.movePrevious() && count++ < MAX_TOKENS) {
+            Token<PHPTokenId> token = ts.token();
+            PHPTokenId id = token.id();
+            if (id == PHPTokenId.PHP_FUNCTION) {
+                // out of the current method
+                return null;
+            }
+            if (id == PHPTokenId.PHPDOC_COMMENT || id == PHPTokenId.PHP_COMMENT) {
+                String type = getDocType(token.text(), variable);
+                if (type != null) {
+                    return type;
+                }
+                continue;
+            }
+            if (id == PHPTokenId.PHP_VARIABLE && TokenUtilities.textEquals(token.text(), variable)) {
+                int index = ts.index();
+                String type = getAssignedType(ts);
+                if (type != null) {
+                    return type;
+                }
+                ts.moveIndex(index);
+                ts.moveNext();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the type of the right hand side. The current token should be the
+     * variable. e.g. $model = new Post; $model = Post::model()->findByPk($id);
+     */
+    private static String getAssignedType(TokenSequence<PHPTokenId> ts) {
+        Token<PHPTokenId> token = nextToken(ts);
+        if (token == null || !TokenUtilities.textEquals(token.text(), "=")) { // NOI18N
+            return null;
+        }
+        token = nextToken(ts);
+        if (token == null) {
+            return null;
+        }
+        if (token.id() == PHPTokenId.PHP_NEW) {
+            token = nextToken(ts);
+            return token != null && token.id() == PHPTokenId.PHP_STRING ? token.text().toString() : null;
+        }
+        if (token.id() != PHPTokenId.PHP_STRING) {
+            return null;
+        }
+        String className = token.text().toString();
+        token = nextToken(ts);
+        if (token == null || token.id() != PHPTokenId.PHP_PAAMAYIM_NEKUDOTAYIM) {
+            return null;
+        }
+        token = nextToken(ts);
+        if (token != null && TokenUtilities.textEquals(token.text(), MODEL_METHOD)) {
+            return className;
+        }
+        return null;
+    }
+
+    private static String getDocType(CharSequence comment, String variable) {
+        Matcher matcher = VAR_NAME_TYPE_PATTERN.matcher(comment);
+        while (matcher.find()) {
+            if (variable.equals(matcher.group(1))) {
+                return matcher.group(2);
+            }
+        }
+        matcher = VAR_TYPE_NAME_PATTERN.matcher(comment);
+        while (matcher.find()) {
+            if (variable.equals(matcher.group(2))) {
+                return matcher.group(1);
+            }
+        }
+        return null;
+    }
+
+    private static Token<PHPTokenId> nextToken(TokenSequence<PHPTokenId> ts) {
+        while (ts.moveNext()) {
+            Token<PHPTokenId> token = ts.token();
+            if (!isSkipped(token.id())) {
+                return token;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isSkipped(PHPTokenId id) {
+        switch (id) {
+            case WHITESPACE:
+            case PHP_COMMENT:
+            case PHP_COMMENT_START:
+            case PHP_COMMENT_END:
+            case PHP_LINE_COMMENT:
+            case PHPDOC_COMMENT:
+            case PHPDOC_COMMENT_START:
+            case PHPDOC_COMMENT_END:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.editor.completion.methods;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.nbphpcouncil.modules.php.yii.YiiFileDescriptor;
+import org.nbphpcouncil.modules.php.yii.YiiModule;
+import org.nbphpcouncil.modules.php.yii.YiiModuleFactory;
+import org.nbphpcouncil.modules.php.yii.util.YiiRouteTable;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Complete routes. e.g. $this->createUrl('site/index')
+ *
+ * A route without "/" is an action of the current controller, a route
+ * without leading "/" is relative to the current module, a route with
+ * leading "/" is relative to the application.
+ *
+ * @author junichi11
+ */
+public class RouteMethod extends Method {
+
+    private static final String SLASH = "/"; // NOI18N
+    private final boolean isAbsolute;
+
+    /**
+     * Constructor.
+     *
+     * @param currentFile current file
+     * @param phpModule PhpModule
+     * @param isAbsolute true if the route is always relative to the
+     * application (e.g. Yii::app()->createUrl()), otherwise false
+     */
+    public RouteMethod(FileObject currentFile, PhpModule phpModule, boolean isAbsolute) {
+        super(currentFile, phpModule);
+        this.isAbsolute = isAbsolute;
+    }
+
+    @Override
+    public List<String> getElements(String filter) {
+        YiiModule yiiModule = YiiModuleFactory.create(phpModule);
+        if (yiiModule == null) {
+            return Collections.emptyList();
+        }
+        YiiRouteTable routeTable = yiiModule.getRouteTable();
+        if (isAbsolute) {
+            return routeTable.getRoutes(filter);
+        }
+        if (filter.startsWith(SLASH)) {
+            return addPrefix(routeTable.getRoutes(filter.substring(1)), SLASH);
+        }
+        if (currentFile == null) {
+            return routeTable.getRoutes(filter);
+        }
+
+        YiiFileDescriptor descriptor = yiiModule.getFileClassifier().classify(currentFile);
+        String moduleName = descriptor.getModuleName();
+        String base = moduleName == null ? "" : moduleName + SLASH; // NOI18N
+        Set<String> elements = new LinkedHashSet<>();
+        if (!filter.contains(SLASH)) {
+            // actions of the current controller
+            String controllerId = descriptor.getControllerId();
+            if (!controllerId.isEmpty()) {
+                String controllerRoute = base + descriptor.getNestedPath() + controllerId + SLASH;
+                for (String route : routeTable.getRoutes(controllerRoute + filter)) {
+                    if (!route.endsWith(SLASH)) {
+                        elements.add(route.substring(controllerRoute.length()));
+                    }
+                }
+            }
+            // controllers of the current module
+            for (String route : routeTable.getRoutes(base + filter)) {
+                if (route.endsWith(SLASH)) {
+                    elements.add(route.substring(base.length()));
+                }
+            }
+            return new ArrayList<>(elements);
+        }
+        for (String route : routeTable.getRoutes(base + filter)) {
+            elements.add(route.substring(base.length()));
+        }
+        return new ArrayList<>(elements);
+    }
+
+    private static List<String> addPrefix(List<String> routes, String prefix) {
+        List<String> result = new ArrayList<>(routes.size());
+        for (String route : routes) {
+            result.add(prefix + route);
+        }
+        return result;
+    }
+}
@@ -52,11 +52,25 @@ public class GoToTItem implements GoToItem {
     private final FileObject fileObject;
     private final int offset;
     private final String localeID;
+    private final boolean missing;
 
     public GoToTItem(FileObject fileObject, int offset, String localeID) {
+        this(fileObject, offset, localeID, false);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param fileObject message file
+     * @param offset offset of the message
+     * @param localeID locale ID
+     * @param missing true if the message file doesn't have the message
+     */
+    public GoToTItem(FileObject fileObject, int offset, String localeID, boolean missing) {
         this.fileObject = fileObject;
         this.offset = offset;
         this.localeID = localeID;
+        this.missing = missing;
     }
 
     @Override
@@ -69,6 +83,16 @@ public class GoToTItem implements GoToItem {
         return offset;
     }
 
+    /**
+     * Check whether the translation is missing.
+     *
+     * @return true if the message file doesn't have the message, otherwise
+     * false
+     */
+    public boolean isMissing() {
+        return missing;
+    }
+
     @Override
     public String toString() {
         return localeID;
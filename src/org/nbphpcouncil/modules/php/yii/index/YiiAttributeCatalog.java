@@ -0,0 +1,181 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.nbphpcouncil.modules.php.yii.YiiFileChangeSupport;
+import org.nbphpcouncil.modules.php.yii.index.YiiIndex.IndexedModel;
+import org.netbeans.modules.parsing.api.indexing.IndexingManager;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Catalog of model attributes (CActiveRecord, CFormModel). A class is a model
+ * if its super class chain reaches CModel. Attributes of a model class and its
+ * indexed super classes are merged once and dropped when one of the class
+ * files is changed.
+ *
+ * @author junichi11
+ */
+public final class YiiAttributeCatalog implements YiiFileChangeSupport.Listener {
+
+    // guard against cyclic inheritance
+    private static final int MAX_DEPTH = 16;
+    private static final Set<String> MODEL_CLASSES = new HashSet<>(Arrays.asList(
+            "CModel", // NOI18N
+            "CFormModel", // NOI18N
+            "CActiveRecord")); // NOI18N
+    private final YiiIndex yiiIndex;
+    // @GuardedBy("entries")
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    public YiiAttributeCatalog(YiiIndex yiiIndex) {
+        this.yiiIndex = yiiIndex;
+    }
+
+    /**
+     * Check whether the class is an indexed model.
+     *
+     * @param className class name
+     * @return true if the class is a model, otherwise false
+     */
+    public boolean isModel(String className) {
+        return getEntry(className).isModel;
+    }
+
+    /**
+     * Get attributes of the model.
+     *
+     * @param className class name
+     * @return sorted attributes
+     */
+    public List<String> getAttributes(String className) {
+        return getEntry(className).attributes;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @Override
+    public void filesChanged(Set<FileObject> files, boolean isStructural) {
+        synchronized (entries) {
+            for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext();) {
+                Entry entry = iterator.next();
+                // not found models may be added
+                if (!entry.isModel || !Collections.disjoint(entry.files, files)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private Entry getEntry(String className) {
+        if (className == null || className.isEmpty()) {
+            return Entry.NONE;
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(className);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        Entry entry = createEntry(className);
+        if (IndexingManager.getDefault().isIndexing()) {
+            // the index may not contain changes yet
+            return entry;
+        }
+        synchronized (entries) {
+            entries.put(className, entry);
+        }
+        return entry;
+    }
+
+    private Entry createEntry(String className) {
+        Set<String> attributes = new TreeSet<>();
+        Set<FileObject> files = new HashSet<>();
+        boolean isModel = false;
+        String name = className;
+        for (int i = 0; name != null && i < MAX_DEPTH; i++) {
+            if (MODEL_CLASSES.contains(name)) {
+                isModel = true;
+                break;
+            }
+            IndexedModel model = yiiIndex.getModel(name);
+            if (model == null) {
+                break;
+            }
+            files.add(model.getFile());
+            attributes.addAll(model.getAttributes());
+            name = model.getSuperClassName();
+        }
+        if (!isModel || files.isEmpty()) {
+            return Entry.NONE;
+        }
+        return new Entry(true, Collections.unmodifiableList(new ArrayList<>(attributes)), files);
+    }
+
+    //~ Inner classes
+    private static final class Entry {
+
+        private static final Entry NONE = new Entry(false, Collections.<String>emptyList(), Collections.<FileObject>emptySet());
+        private final boolean isModel;
+        private final List<String> attributes;
+        private final Set<FileObject> files;
+
+        public Entry(boolean isModel, List<String> attributes, Set<FileObject> files) {
+            this.isModel = isModel;
+            this.attributes = attributes;
+            this.files = files;
+        }
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.netbeans.modules.parsing.api.indexing.IndexingManager;
+import org.netbeans.modules.parsing.spi.indexing.support.IndexResult;
+import org.netbeans.modules.parsing.spi.indexing.support.QuerySupport;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Query support for the Yii index.
+ *
+ * @author junichi11
+ * @see YiiIndexer
+ */
+public final class YiiIndex {
+
+    // fields
+    static final String FIELD_ROLE = "role"; // NOI18N
+    static final String FIELD_MODULE = "module"; // NOI18N
+    static final String FIELD_CONTROLLER = "controller"; // NOI18N
+    static final String FIELD_NESTED_PATH = "nested"; // NOI18N
+    static final String FIELD_CONTROLLERS_PATH = "controllersdir"; // NOI18N
+    static final String FIELD_ACTION = "action"; // NOI18N
+    static final String FIELD_ACTION_CLASS = "actionclass"; // NOI18N
+    static final String FIELD_CLASS = "class"; // NOI18N
+    static final String FIELD_COMMAND = "command"; // NOI18N
+    static final String FIELD_SUBCOMMAND = "subcommand"; // NOI18N
+    static final String FIELD_COMMANDS_PATH = "commandsdir"; // NOI18N
+    static final String FIELD_SUPER_CLASS = "superclass"; // NOI18N
+    static final String FIELD_ATTRIBUTE = "attribute"; // NOI18N
+    static final String SEPARATOR = ";"; // NOI18N
+    // roles
+    static final String ROLE_CONTROLLER = "controller"; // NOI18N
+    static final String ROLE_WIDGET = "widget"; // NOI18N
+    static final String ROLE_COMMAND = "command"; // NOI18N
+    static final String ROLE_MODEL = "model"; // NOI18N
+    private static final String[] CONTROLLER_FIELDS = {FIELD_MODULE, FIELD_CONTROLLERS_PATH, FIELD_NESTED_PATH, FIELD_CONTROLLER, FIELD_ACTION, FIELD_ACTION_CLASS};
+    private static final Logger LOGGER = Logger.getLogger(YiiIndex.class.getName());
+    private final FileObject[] roots;
+
+    private YiiIndex(FileObject[] roots) {
+        this.roots = roots;
+    }
+
+    public static YiiIndex create(PhpModule phpModule) {
+        FileObject sourceDirectory = phpModule.getSourceDirectory();
+        if (sourceDirectory == null) {
+            return new YiiIndex(new FileObject[0]);
+        }
+        return new YiiIndex(new FileObject[]{sourceDirectory});
+    }
+
+    /**
+     * Refresh the index for roots. Use when the project becomes Yii project.
+     */
+    public void refresh() {
+        for (FileObject root : roots) {
+            IndexingManager.getDefault().refreshIndex(root.toURL(), null);
+        }
+    }
+
+    /**
+     * Get all controllers.
+     *
+     * @return controllers
+     */
+    public List<IndexedController> getControllers() {
+        List<IndexedController> controllers = new ArrayList<>();
+        for (IndexResult result : query(FIELD_ROLE, ROLE_CONTROLLER, QuerySupport.Kind.EXACT, CONTROLLER_FIELDS)) {
+            IndexedController controller = createController(result);
+            if (controller != null) {
+                controllers.add(controller);
+            }
+        }
+        return controllers;
+    }
+
+    /**
+     * Get controller file. Controllers of other directories which have the
+     * same id (e.g. gii, extensions) are ignored.
+     *
+     * @param controllersDirectory controllers directory of the application or
+     * a module
+     * @param nestedPath nested path from controllers directory e.g. admin/
+     * @param controllerId controller id
+     * @return controller file if it exists in the index, otherwise null.
+     */
+    public FileObject getController(FileObject controllersDirectory, String nestedPath, String controllerId) {
+        String controllersPath = getRelativePath(controllersDirectory);
+        if (controllersPath == null) {
+            return null;
+        }
+        for (IndexResult result : query(FIELD_CONTROLLER, controllerId, QuerySupport.Kind.EXACT, CONTROLLER_FIELDS)) {
+            if (controllersPath.equals(result.getValue(FIELD_CONTROLLERS_PATH))
+                    && nestedPath.equals(result.getValue(FIELD_NESTED_PATH))) {
+                FileObject file = result.getFile();
+                if (file != null) {
+                    return file;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get the relative path from the index root. It can be compared with
+     * {@link IndexedController#getControllersPath()}.
+     *
+     * @param file file or directory
+     * @return relative path, null if the file is not under the index root
+     */
+    public String getRelativePath(FileObject file) {
+        if (file == null) {
+            return null;
+        }
+        for (FileObject root : roots) {
+            String relativePath = FileUtil.getRelativePath(root, file);
+            if (relativePath != null) {
+                return relativePath;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Get widget class names.
+     *
+     * @return sorted widget class names
+     */
+    public Set<String> getWidgetClassNames() {
+        return getValues(ROLE_WIDGET, FIELD_CLASS);
+    }
+
+    /**
+     * Get the class which extends a class. Use {@link YiiAttributeCatalog}
+     * to check whether it is a model.
+     *
+     * @param className class name
+     * @return class if it exists in the index, otherwise null
+     */
+    public IndexedModel getModel(String className) {
+        for (IndexResult result : query(FIELD_CLASS, className, QuerySupport.Kind.EXACT, FIELD_ROLE, FIELD_SUPER_CLASS, FIELD_ATTRIBUTE)) {
+            FileObject file = result.getFile();
+            if (file == null || !ROLE_MODEL.equals(result.getValue(FIELD_ROLE))) {
+                continue;
+            }
+            List<String> attributes = new ArrayList<>();
+            String[] values = result.getValues(FIELD_ATTRIBUTE);
+            if (values != null) {
+                Collections.addAll(attributes, values);
+            }
+            return new IndexedModel(file, className, result.getValue(FIELD_SUPER_CLASS), attributes);
+        }
+        return null;
+    }
+
+    /**
+     * Get console commands of the commands directory. Commands of other
+     * directories (e.g. framework/cli/commands) are ignored.
+     *
+     * @param commandsDirectory commands directory
+     * @return command name and sub command names
+     */
+    public Map<String, List<String>> getCommands(FileObject commandsDirectory) {
+        Map<String, List<String>> commands = new LinkedHashMap<>();
+        String commandsPath = getRelativePath(commandsDirectory);
+        if (commandsPath == null) {
+            return commands;
+        }
+        for (IndexResult result : query(FIELD_ROLE, ROLE_COMMAND, QuerySupport.Kind.EXACT, FIELD_COMMAND, FIELD_SUBCOMMAND, FIELD_COMMANDS_PATH)) {
+            String command = result.getValue(FIELD_COMMAND);
+            if (command == null || !commandsPath.equals(result.getValue(FIELD_COMMANDS_PATH))) {
+                continue;
+            }
+            List<String> subcommands = new ArrayList<>();
+            String[] values = result.getValues(FIELD_SUBCOMMAND);
+            if (values != null) {
+                Collections.addAll(subcommands, values);
+                Collections.sort(subcommands, String.CASE_INSENSITIVE_ORDER);
+            }
+            commands.put(command, subcommands);
+        }
+        return commands;
+    }
+
+    private Set<String> getValues(String role, String field) {
+        Set<String> values = new TreeSet<>();
+        for (IndexResult result : query(FIELD_ROLE, role, QuerySupport.Kind.EXACT, field)) {
+            String value = result.getValue(field);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        return values;
+    }
+
+    private IndexedController createController(IndexResult result) {
+        FileObject file = result.getFile();
+        if (file == null) {
+            return null;
+        }
+        Map<String, String> actionClasses = new LinkedHashMap<>();
+        String[] values = result.getValues(FIELD_ACTION_CLASS);
+        if (values != null) {
+            for (String value : values) {
+                int index = value.indexOf(SEPARATOR);
+                actionClasses.put(value.substring(0, index), value.substring(index + 1));
+            }
+        }
+        List<String> actionIds = new ArrayList<>();
+        String[] actions = result.getValues(FIELD_ACTION);
+        if (actions != null) {
+            Collections.addAll(actionIds, actions);
+        }
+        return new IndexedController(
+                file,
+                result.getValue(FIELD_MODULE),
+                result.getValue(FIELD_CONTROLLERS_PATH),
+                result.getValue(FIELD_NESTED_PATH),
+                result.getValue(FIELD_CONTROLLER),
+                actionIds,
+                actionClasses);
+    }
+
+    private Collection<? extends IndexResult> query(String fieldName, String fieldValue, QuerySupport.Kind kind, String... fieldsToLoad) {
+        if (roots.length == 0 || fieldValue == null) {
+            return Collections.emptyList();
+        }
+        try {
+            QuerySupport querySupport = QuerySupport.forRoots(YiiIndexer.NAME, YiiIndexer.VERSION, roots);
+            return querySupport.query(fieldName, fieldValue, kind, fieldsToLoad);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, null, ex);
+        }
+        return Collections.emptyList();
+    }
+
+    //~ Inner classes
+    public static final class IndexedController {
+
+        private final FileObject file;
+        private final String moduleName;
+        private final String controllersPath;
+        private final String nestedPath;
+        private final String controllerId;
+        private final List<String> actionIds;
+        private final Map<String, String> actionClasses;
+
+        IndexedController(FileObject file, String moduleName, String controllersPath, String nestedPath, String controllerId, List<String> actionIds, Map<String, String> actionClasses) {
+            this.file = file;
+            this.moduleName = moduleName == null ? "" : moduleName; // NOI18N
+            this.controllersPath = controllersPath == null ? "" : controllersPath; // NOI18N
+            this.nestedPath = nestedPath == null ? "" : nestedPath; // NOI18N
+            this.controllerId = controllerId;
+            this.actionIds = Collections.unmodifiableList(actionIds);
+            this.actionClasses = Collections.unmodifiableMap(actionClasses);
+        }
+
+        public FileObject getFile() {
+            return file;
+        }
+
+        public String getModuleName() {
+            return moduleName;
+        }
+
+        /**
+         * Get the path of the controllers directory from the index root. e.g.
+         * protected/controllers, protected/modules/admin/controllers
+         *
+         * @return controllers path
+         */
+        public String getControllersPath() {
+            return controllersPath;
+        }
+
+        public String getNestedPath() {
+            return nestedPath;
+        }
+
+        public String getControllerId() {
+            return controllerId;
+        }
+
+        /**
+         * Get action ids. Contains both action methods and actions() entries.
+         *
+         * @return action ids
+         */
+        public List<String> getActionIds() {
+            return actionIds;
+        }
+
+        /**
+         * Get action classes of actions() method.
+         *
+         * @return action id and class (path alias or class name)
+         */
+        public Map<String, String> getActionClasses() {
+            return actionClasses;
+        }
+    }
+
+    public static final class IndexedModel {
+
+        private final FileObject file;
+        private final String className;
+        private final String superClassName;
+        private final List<String> attributes;
+
+        IndexedModel(FileObject file, String className, String superClassName, List<String> attributes) {
+            this.file = file;
+            this.className = className;
+            this.superClassName = superClassName;
+            this.attributes = Collections.unmodifiableList(attributes);
+        }
+
+        public FileObject getFile() {
+            return file;
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        /**
+         * Get the super class name.
+         *
+         * @return super class name, null if the class doesn't extend a class
+         */
+        public String getSuperClassName() {
+            return superClassName;
+        }
+
+        /**
+         * Get attributes which are declared in the class. i.e. @property tags,
+         * public fields and attributes of rules(), attributeLabels() and
+         * relations().
+         *
+         * @return attributes
+         */
+        public List<String> getAttributes() {
+            return attributes;
+        }
+    }
+}
@@ -0,0 +1,518 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.index;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.nbphpcouncil.modules.php.yii.util.YiiCodeUtils;
+import org.nbphpcouncil.modules.php.yii.util.YiiUtils;
+import org.netbeans.api.editor.mimelookup.MimeRegistration;
+import org.netbeans.modules.csl.spi.ParserResult;
+import org.netbeans.modules.parsing.api.Snapshot;
+import org.netbeans.modules.parsing.spi.Parser;
+import org.netbeans.modules.parsing.spi.indexing.Context;
+import org.netbeans.modules.parsing.spi.indexing.EmbeddingIndexer;
+import org.netbeans.modules.parsing.spi.indexing.EmbeddingIndexerFactory;
+import org.netbeans.modules.parsing.spi.indexing.Indexable;
+import org.netbeans.modules.parsing.spi.indexing.support.IndexDocument;
+import org.netbeans.modules.parsing.spi.indexing.support.IndexingSupport;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.netbeans.modules.php.api.util.FileUtils;
+import org.netbeans.modules.php.editor.CodeUtils;
+import org.netbeans.modules.php.editor.parser.api.Utils;
+import org.netbeans.modules.php.editor.parser.astnodes.ArrayCreation;
+import org.netbeans.modules.php.editor.parser.astnodes.ArrayElement;
+import org.netbeans.modules.php.editor.parser.astnodes.BodyDeclaration;
+import org.netbeans.modules.php.editor.parser.astnodes.ClassDeclaration;
+import org.netbeans.modules.php.editor.parser.astnodes.Comment;
+import org.netbeans.modules.php.editor.parser.astnodes.Expression;
+import org.netbeans.modules.php.editor.parser.astnodes.FieldsDeclaration;
+import org.netbeans.modules.php.editor.parser.astnodes.MethodDeclaration;
+import org.netbeans.modules.php.editor.parser.astnodes.Program;
+import org.netbeans.modules.php.editor.parser.astnodes.ReturnStatement;
+import org.netbeans.modules.php.editor.parser.astnodes.SingleFieldDeclaration;
+import org.netbeans.modules.php.editor.parser.astnodes.visitors.DefaultVisitor;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Indexer for Yii project model. Controllers, actions, widgets, classes with
+ * their super classes and attributes, and console commands are stored, so
+ * that routes and code completion don't have to parse PHP files again. Views
+ * are looked up from the file system by their paths.
+ *
+ * @author junichi11
+ */
+public final class YiiIndexer extends EmbeddingIndexer {
+
+    static final String NAME = "yii"; // NOI18N
+    static final int VERSION = 6;
+    private static final String PHP_EXT = ".php"; // NOI18N
+    private static final String CONTROLLERS = "controllers"; // NOI18N
+    private static final String MODULES = "modules"; // NOI18N
+    private static final String COMMANDS = "commands"; // NOI18N
+    private static final String WIDGETS = "widgets"; // NOI18N
+    private static final String CONTROLLER_SUFFIX = "Controller"; // NOI18N
+    private static final String COMMAND_SUFFIX = "Command"; // NOI18N
+    private static final String ACTION_PREFIX = "action"; // NOI18N
+    private static final Set<String> WIDGET_CLASSES = new HashSet<>(Arrays.asList(
+            "CWidget", // NOI18N
+            "CInputWidget", // NOI18N
+            "CPortlet", // NOI18N
+            "CBaseListView", // NOI18N
+            "CGridView", // NOI18N
+            "CListView", // NOI18N
+            "CDetailView", // NOI18N
+            "CMenu", // NOI18N
+            "CJuiWidget", // NOI18N
+            "CJuiInputWidget")); // NOI18N
+    private static final Logger LOGGER = Logger.getLogger(YiiIndexer.class.getName());
+
+    @Override
+    protected void index(Indexable indexable, Parser.Result parserResult, Context context) {
+        if (!Factory.isYiiRoot(context)) {
+            return;
+        }
+        String relativePath = indexable.getRelativePath();
+        if (relativePath == null || !relativePath.endsWith(PHP_EXT)) {
+            return;
+        }
+        Program root = Utils.getRoot((ParserResult) parserResult);
+        if (root == null) {
+            return;
+        }
+
+        IndexingSupport support;
+        try {
+            support = IndexingSupport.getInstance(context);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, null, ex);
+            return;
+        }
+
+        String[] segments = relativePath.split("/"); // NOI18N
+        String fileName = segments[segments.length - 1];
+        String name = fileName.substring(0, fileName.length() - PHP_EXT.length());
+        IndexDocument document = support.createDocument(indexable);
+        boolean isIndexed = false;
+
+        // classes
+        YiiIndexVisitor visitor = new YiiIndexVisitor(parserResult.getSnapshot().getText());
+        visitor.scan(root);
+        int controllersIndex = lastIndexOf(segments, CONTROLLERS);
+        String parentName = segments.length > 1 ? segments[segments.length - 2] : ""; // NOI18N
+        for (String className : visitor.getClassNames()) {
+            if (controllersIndex != -1 && className.equals(name) && name.endsWith(CONTROLLER_SUFFIX)) {
+                document.addPair(YiiIndex.FIELD_ROLE, YiiIndex.ROLE_CONTROLLER, true, true);
+                document.addPair(YiiIndex.FIELD_MODULE, getModuleName(segments, controllersIndex), true, true);
+                // e.g. protected/controllers, protected/modules/admin/controllers, framework/gii/controllers
+                document.addPair(YiiIndex.FIELD_CONTROLLERS_PATH, join(segments, 0, controllersIndex, CONTROLLERS), false, true);
+                document.addPair(YiiIndex.FIELD_NESTED_PATH, join(segments, controllersIndex + 1, segments.length - 1, ""), true, true); // NOI18N
+                document.addPair(YiiIndex.FIELD_CONTROLLER, YiiUtils.getViewFolderName(name), true, true);
+                for (String methodName : visitor.getMethodNames(className)) {
+                    if (YiiUtils.isActionMethodName(methodName)) {
+                        document.addPair(YiiIndex.FIELD_ACTION, YiiUtils.toFirstLowerCase(methodName.substring(ACTION_PREFIX.length())), true, true);
+                    }
+                }
+                for (Map.Entry<String, String> entry : visitor.getActionsMap().entrySet()) {
+                    document.addPair(YiiIndex.FIELD_ACTION, entry.getKey(), true, true);
+                    document.addPair(YiiIndex.FIELD_ACTION_CLASS, entry.getKey() + YiiIndex.SEPARATOR + entry.getValue(), false, true);
+                }
+                isIndexed = true;
+            } else if (parentName.equals(COMMANDS) && className.equals(name) && name.endsWith(COMMAND_SUFFIX)) {
+                document.addPair(YiiIndex.FIELD_ROLE, YiiIndex.ROLE_COMMAND, true, true);
+                document.addPair(YiiIndex.FIELD_COMMAND, name.substring(0, name.length() - COMMAND_SUFFIX.length()).toLowerCase(), true, true);
+                // e.g. protected/commands, framework/cli/commands
+                document.addPair(YiiIndex.FIELD_COMMANDS_PATH, join(segments, 0, segments.length - 2, COMMANDS), false, true);
+                for (String methodName : visitor.getMethodNames(className)) {
+                    if (methodName.startsWith(ACTION_PREFIX) && methodName.length() > ACTION_PREFIX.length()) {
+                        document.addPair(YiiIndex.FIELD_SUBCOMMAND, methodName.substring(ACTION_PREFIX.length()).toLowerCase(), false, true);
+                    }
+                }
+                isIndexed = true;
+            } else if (isWidget(visitor.getSuperClassName(className), parentName)) {
+                document.addPair(YiiIndex.FIELD_ROLE, YiiIndex.ROLE_WIDGET, true, true);
+                document.addPair(YiiIndex.FIELD_CLASS, className, true, true);
+                isIndexed = true;
+            }
+            List<String> attributes = visitor.getAttributes(className);
+            String superClassName = visitor.getSuperClassName(className);
+            if (superClassName != null) {
+                // a document per subclass, YiiAttributeCatalog checks whether the chain reaches CModel
+                IndexDocument modelDocument = support.createDocument(indexable);
+                modelDocument.addPair(YiiIndex.FIELD_ROLE, YiiIndex.ROLE_MODEL, true, true);
+                modelDocument.addPair(YiiIndex.FIELD_CLASS, className, true, true);
+                modelDocument.addPair(YiiIndex.FIELD_SUPER_CLASS, superClassName, false, true);
+                for (String attribute : attributes) {
+                    modelDocument.addPair(YiiIndex.FIELD_ATTRIBUTE, attribute, false, true);
+                }
+                support.addDocument(modelDocument);
+            }
+        }
+
+        if (isIndexed) {
+            support.addDocument(document);
+        }
+    }
+
+    private static boolean isWidget(String superClassName, String parentName) {
+        if (superClassName == null) {
+            return false;
+        }
+        return WIDGET_CLASSES.contains(superClassName)
+                || superClassName.endsWith("Widget") // NOI18N
+                || parentName.equals(WIDGETS);
+    }
+
+    private static int lastIndexOf(String[] segments, String segment) {
+        // the last segment is the file name
+        for (int i = segments.length - 2; i >= 0; i--) {
+            if (segments[i].equals(segment)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String getModuleName(String[] segments, int endIndex) {
+        for (int i = endIndex - 2; i >= 0; i--) {
+            if (segments[i].equals(MODULES)) {
+                return segments[i + 1];
+            }
+        }
+        return ""; // NOI18N
+    }
+
+    private static String join(String[] segments, int startIndex, int endIndex, String last) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = startIndex; i < endIndex; i++) {
+            sb.append(segments[i]).append("/"); // NOI18N
+        }
+        sb.append(last);
+        return sb.toString();
+    }
+
+    //~ Inner classes
+    @MimeRegistration(mimeType = FileUtils.PHP_MIME_TYPE, service = EmbeddingIndexerFactory.class)
+    public static final class Factory extends EmbeddingIndexerFactory {
+
+        private static final Map<URL, Boolean> YII_ROOTS = new ConcurrentHashMap<>();
+
+        @Override
+        public EmbeddingIndexer createIndexer(Indexable indexable, Snapshot snapshot) {
+            return new YiiIndexer();
+        }
+
+        @Override
+        public boolean scanStarted(Context context) {
+            // project settings might be changed
+            YII_ROOTS.remove(context.getRootURI());
+            return super.scanStarted(context);
+        }
+
+        @Override
+        public void filesDeleted(Iterable<? extends Indexable> deleted, Context context) {
+            try {
+                IndexingSupport support = IndexingSupport.getInstance(context);
+                for (Indexable indexable : deleted) {
+                    support.removeDocuments(indexable);
+                }
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, null, ex);
+            }
+        }
+
+        @Override
+        public void filesDirty(Iterable<? extends Indexable> dirty, Context context) {
+            try {
+                IndexingSupport support = IndexingSupport.getInstance(context);
+                for (Indexable indexable : dirty) {
+                    support.markDirtyDocuments(indexable);
+                }
+            } catch (IOException ex) {
+                LOGGER.log(Level.WARNING, null, ex);
+            }
+        }
+
+        @Override
+        public void rootsRemoved(Iterable<? extends URL> removedRoots) {
+            for (URL removedRoot : removedRoots) {
+                YII_ROOTS.remove(removedRoot);
+            }
+        }
+
+        @Override
+        public String getIndexerName() {
+            return NAME;
+        }
+
+        @Override
+        public int getIndexVersion() {
+            return VERSION;
+        }
+
+        /**
+         * Check whether the root of context belongs to a Yii project.
+         *
+         * @param context indexing context
+         * @return true if the root is Yii, otherwise false.
+         */
+        static boolean isYiiRoot(Context context) {
+            URL rootURI = context.getRootURI();
+            Boolean isYii = YII_ROOTS.get(rootURI);
+            if (isYii == null) {
+                FileObject root = context.getRoot();
+                isYii = root != null && YiiUtils.isYii(PhpModule.Factory.forFileObject(root));
+                YII_ROOTS.put(rootURI, isYii);
+            }
+            return isYii;
+        }
+    }
+
+    private static final class YiiIndexVisitor extends DefaultVisitor {
+
+        private static final String ACTIONS_METHOD = "actions"; // NOI18N
+        private static final String RULES_METHOD = "rules"; // NOI18N
+        private static final String ATTRIBUTE_LABELS_METHOD = "attributeLabels"; // NOI18N
+        private static final String RELATIONS_METHOD = "relations"; // NOI18N
+        private static final String CLASS_KEY = "class"; // NOI18N
+        // @property string $name, @property-read User $user
+        private static final Pattern PROPERTY_PATTERN = Pattern.compile("@property(?:-read|-write)?\\s+(?:[^\\s$]+\\s+)?\\$([A-Za-z_][A-Za-z0-9_]*)"); // NOI18N
+        private final CharSequence text;
+        private final List<String> classNames = new ArrayList<>();
+        private final Map<String, String> superClassNames = new LinkedHashMap<>();
+        private final Map<String, List<String>> methodNames = new LinkedHashMap<>();
+        private final Map<String, Set<String>> attributes = new LinkedHashMap<>();
+        private final Map<String, String> actionsMap = new LinkedHashMap<>();
+        private final List<Comment> comments = new ArrayList<>();
+        private String className;
+        private String methodName;
+
+        public YiiIndexVisitor(CharSequence text) {
+            this.text = text;
+        }
+
+        @Override
+        public void visit(Program program) {
+            comments.addAll(program.getComments());
+            super.visit(program);
+        }
+
+        @Override
+        public void visit(ClassDeclaration node) {
+            className = node.getName().getName();
+            classNames.add(className);
+            methodNames.put(className, new ArrayList<String>());
+            attributes.put(className, new LinkedHashSet<String>());
+            addPropertyTags(node);
+            Expression superClass = node.getSuperClass();
+            if (superClass != null) {
+                String superClassName = CodeUtils.extractQualifiedName(superClass);
+                if (superClassName != null) {
+                    // remove namespace
+                    superClassNames.put(className, superClassName.substring(superClassName.lastIndexOf('\\') + 1));
+                }
+            }
+            super.visit(node);
+            className = null;
+        }
+
+        @Override
+        public void visit(MethodDeclaration node) {
+            String methodName = CodeUtils.extractMethodName(node);
+            if (className != null) {
+                methodNames.get(className).add(methodName);
+            }
+            this.methodName = methodName;
+            super.visit(node);
+            this.methodName = null;
+        }
+
+        @Override
+        public void visit(FieldsDeclaration node) {
+            int modifier = node.getModifier();
+            if (className != null && BodyDeclaration.Modifier.isPublic(modifier) && !BodyDeclaration.Modifier.isStatic(modifier)) {
+                for (SingleFieldDeclaration field : node.getFields()) {
+                    String name = CodeUtils.extractVariableName(field.getName());
+                    if (name != null) {
+                        addAttribute(name.startsWith("$") ? name.substring(1) : name); // NOI18N
+                    }
+                }
+            }
+            super.visit(node);
+        }
+
+        @Override
+        public void visit(ReturnStatement node) {
+            Expression expression = node.getExpression();
+            if (methodName != null && expression instanceof ArrayCreation) {
+                List<ArrayElement> elements = ((ArrayCreation) expression).getElements();
+                switch (methodName) {
+                    case ACTIONS_METHOD:
+                        for (ArrayElement element : elements) {
+                            String actionId = YiiCodeUtils.getStringValue(element.getKey());
+                            if (actionId.isEmpty()) {
+                                continue;
+                            }
+                            actionsMap.put(actionId, getActionClass(element.getValue()));
+                        }
+                        break;
+                    case RULES_METHOD:
+                        // array('name, email', 'required')
+                        for (ArrayElement element : elements) {
+                            addRuleAttributes(element.getValue());
+                        }
+                        break;
+                    case ATTRIBUTE_LABELS_METHOD: // fallthrough
+                    case RELATIONS_METHOD:
+                        for (ArrayElement element : elements) {
+                            addAttribute(YiiCodeUtils.getStringValue(element.getKey()));
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            super.visit(node);
+        }
+
+        private void addRuleAttributes(Expression rule) {
+            if (!(rule instanceof ArrayCreation)) {
+                return;
+            }
+            List<ArrayElement> elements = ((ArrayCreation) rule).getElements();
+            if (elements.isEmpty()) {
+                return;
+            }
+            for (String attribute : YiiCodeUtils.getStringValue(elements.get(0).getValue()).split(",")) { // NOI18N
+                addAttribute(attribute.trim());
+            }
+        }
+
+        private void addAttribute(String attribute) {
+            if (className != null && !attribute.isEmpty()) {
+                attributes.get(className).add(attribute);
+            }
+        }
+
+        /**
+         * Add attributes of the doc comment of the class.
+         */
+        private void addPropertyTags(ClassDeclaration node) {
+            Comment docComment = null;
+            for (Comment comment : comments) {
+                if (comment.getCommentType() == Comment.Type.TYPE_PHPDOC
+                        && comment.getEndOffset() <= node.getStartOffset()) {
+                    docComment = comment;
+                }
+            }
+            if (docComment == null
+                    || node.getStartOffset() > text.length()
+                    || !text.subSequence(docComment.getEndOffset(), node.getStartOffset()).toString().trim().isEmpty()) {
+                return;
+            }
+            Matcher matcher = PROPERTY_PATTERN.matcher(text.subSequence(docComment.getStartOffset(), docComment.getEndOffset()));
+            while (matcher.find()) {
+                addAttribute(matcher.group(1));
+            }
+        }
+
+        private String getActionClass(Expression value) {
+            if (value instanceof ArrayCreation) {
+                for (ArrayElement element : ((ArrayCreation) value).getElements()) {
+                    if (CLASS_KEY.equals(YiiCodeUtils.getStringValue(element.getKey()))) {
+                        return YiiCodeUtils.getStringValue(element.getValue());
+                    }
+                }
+                return ""; // NOI18N
+            }
+            return YiiCodeUtils.getStringValue(value);
+        }
+
+        public List<String> getClassNames() {
+            return classNames;
+        }
+
+        public String getSuperClassName(String name) {
+            return superClassNames.get(name);
+        }
+
+        public List<String> getMethodNames(String name) {
+            List<String> names = methodNames.get(name);
+            if (names == null) {
+                return new ArrayList<>();
+            }
+            return names;
+        }
+
+        public Map<String, String> getActionsMap() {
+            return actionsMap;
+        }
+
+        /**
+         * Get attributes of the model. i.e. @property tags, public fields and
+         * attributes of rules(), attributeLabels() and relations().
+         *
+         * @param name class name
+         * @return attributes
+         */
+        public List<String> getAttributes(String name) {
+            Set<String> names = attributes.get(name);
+            if (names == null) {
+                return new ArrayList<>();
+            }
+            return new ArrayList<>(names);
+        }
+    }
+}
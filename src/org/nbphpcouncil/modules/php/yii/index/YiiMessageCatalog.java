@@ -0,0 +1,504 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.nbphpcouncil.modules.php.yii.YiiFileChangeSupport;
+import org.nbphpcouncil.modules.php.yii.YiiModule;
+import org.netbeans.api.lexer.Token;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenSequence;
+import org.netbeans.api.lexer.TokenUtilities;
+import org.netbeans.modules.parsing.spi.indexing.support.QuerySupport;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.netbeans.modules.php.editor.api.ElementQuery;
+import org.netbeans.modules.php.editor.api.ElementQueryFactory;
+import org.netbeans.modules.php.editor.api.NameKind;
+import org.netbeans.modules.php.editor.api.QuerySupportFactory;
+import org.netbeans.modules.php.editor.api.elements.ClassElement;
+import org.netbeans.modules.php.editor.lexer.PHPTokenId;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * Catalog of translation messages (category, locale and message keys) for
+ * Yii::t(). Categories of the application messages directory are used as
+ * is, categories of the messages directory next to a class are prefixed with
+ * the class name. e.g. Yii::t('app', ...), Yii::t('MyModule.main', ...)
+ *
+ * The catalog is an index of category, locale, message key and offset of the
+ * key. Listings of messages directories and messages of files are built on
+ * demand with the lexer (without parsing) and dropped per file when the files
+ * are changed.
+ *
+ * @author junichi11
+ */
+public final class YiiMessageCatalog implements YiiFileChangeSupport.Listener {
+
+    private static final String MESSAGES = "messages"; // NOI18N
+    private static final String PHP_EXT = "php"; // NOI18N
+    private static final String[] EMPTY = new String[0];
+    private static final Comparator<Message> LOCALE_COMPARATOR = new Comparator<Message>() {
+        @Override
+        public int compare(Message o1, Message o2) {
+            return o1.getLocale().compareTo(o2.getLocale());
+        }
+    };
+    private static final Logger LOGGER = Logger.getLogger(YiiMessageCatalog.class.getName());
+    private final YiiModule yiiModule;
+    private final PhpModule phpModule;
+    // @GuardedBy("this")
+    private final Map<FileObject, Listing> listings = new HashMap<>();
+    // @GuardedBy("this")
+    // message file -> key -> offset
+    private final Map<FileObject, Map<String, Integer>> messages = new HashMap<>();
+    // @GuardedBy("this")
+    private final Map<String, FileObject> classDirectories = new HashMap<>();
+
+    public YiiMessageCatalog(YiiModule yiiModule, PhpModule phpModule) {
+        this.yiiModule = yiiModule;
+        this.phpModule = phpModule;
+    }
+
+    /**
+     * Get categories which start with the prefix. If the prefix contains a
+     * class name (e.g. MyModule.), categories of the class are returned.
+     *
+     * @param prefix prefix of the category
+     * @return sorted categories
+     */
+    public List<String> getCategories(String prefix) {
+        String className = getClassName(prefix);
+        Listing listing = getListing(getMessagesDirectory(className));
+        if (listing == null) {
+            return Collections.emptyList();
+        }
+        String categoryPrefix = className.isEmpty() ? "" : className + "."; // NOI18N
+        List<String> categories = new ArrayList<>();
+        for (String category : listing.categories.keySet()) {
+            String name = categoryPrefix + category;
+            if (name.startsWith(prefix)) {
+                categories.add(name);
+            }
+        }
+        return categories;
+    }
+
+    /**
+     * Get message keys of all locales which start with the prefix.
+     *
+     * @param category category e.g. app, MyModule.main
+     * @param prefix prefix of the key
+     * @return sorted keys
+     */
+    public List<String> getKeys(String category, String prefix) {
+        String[] allKeys = getKeys(category);
+        List<String> result = new ArrayList<>();
+        for (int i = lowerBound(allKeys, prefix); i < allKeys.length && allKeys[i].startsWith(prefix); i++) {
+            result.add(allKeys[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Get the message of the key in each locale of the category. If the key
+     * doesn't exist in a locale, the message is missing and its offset is -1.
+     *
+     * @param category category e.g. app, MyModule.main
+     * @param key message key, null or empty for the category files only
+     * @return messages sorted by locale
+     */
+    public List<Message> getMessages(String category, String key) {
+        String className = getClassName(category);
+        String categoryName = className.isEmpty() ? category : category.substring(className.length() + 1);
+        Listing listing = getListing(getMessagesDirectory(className));
+        if (listing == null) {
+            return Collections.emptyList();
+        }
+        List<FileObject> files;
+        synchronized (this) {
+            files = listing.categories.get(categoryName);
+        }
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        List<Message> result = new ArrayList<>(files.size());
+        for (FileObject file : files) {
+            int offset = -1;
+            if (key != null && !key.isEmpty()) {
+                Integer keyOffset = getFileMessages(file).get(key);
+                if (keyOffset != null) {
+                    offset = keyOffset;
+                }
+            }
+            result.add(new Message(file.getParent().getName(), file, offset));
+        }
+        Collections.sort(result, LOCALE_COMPARATOR);
+        return result;
+    }
+
+    /**
+     * Build the listing of the application messages directory in advance.
+     */
+    public void prepare() {
+        getListing(yiiModule.getMessages());
+    }
+
+    public synchronized void clear() {
+        listings.clear();
+        messages.clear();
+        classDirectories.clear();
+    }
+
+    /**
+     * Drop listings. Use when the messages directory is changed. Messages of
+     * files are kept since they are dropped by file events.
+     */
+    public synchronized void reset() {
+        listings.clear();
+        classDirectories.clear();
+    }
+
+    @Override
+    public synchronized void filesChanged(Set<FileObject> files, boolean isStructural) {
+        for (FileObject file : files) {
+            messages.remove(file);
+            if (file.isFolder() || !file.isValid()) {
+                // a module or an extension may be added
+                classDirectories.clear();
+            }
+            for (Iterator<Map.Entry<FileObject, Listing>> iterator = listings.entrySet().iterator(); iterator.hasNext();) {
+                Map.Entry<FileObject, Listing> entry = iterator.next();
+                FileObject directory = entry.getKey();
+                if (!directory.isValid()
+                        || file.equals(directory)
+                        || FileUtil.isParentOf(file, directory)) {
+                    iterator.remove();
+                } else if (FileUtil.isParentOf(directory, file)) {
+                    if (!entry.getValue().contains(file)) {
+                        // a locale or a category is created, renamed or deleted
+                        iterator.remove();
+                    } else {
+                        entry.getValue().mergedKeys.remove(file.getName());
+                    }
+                }
+            }
+        }
+    }
+
+    private String[] getKeys(String category) {
+        String className = getClassName(category);
+        String categoryName = className.isEmpty() ? category : category.substring(className.length() + 1);
+        Listing listing = getListing(getMessagesDirectory(className));
+        if (listing == null) {
+            return EMPTY;
+        }
+        List<FileObject> files;
+        synchronized (this) {
+            String[] merged = listing.mergedKeys.get(categoryName);
+            if (merged != null) {
+                return merged;
+            }
+            files = listing.categories.get(categoryName);
+        }
+        if (files == null) {
+            return EMPTY;
+        }
+        Set<String> allKeys = new TreeSet<>();
+        for (FileObject file : files) {
+            allKeys.addAll(getFileMessages(file).keySet());
+        }
+        String[] merged = allKeys.toArray(new String[allKeys.size()]);
+        synchronized (this) {
+            listing.mergedKeys.put(categoryName, merged);
+        }
+        return merged;
+    }
+
+    private Map<String, Integer> getFileMessages(FileObject file) {
+        synchronized (this) {
+            Map<String, Integer> fileMessages = messages.get(file);
+            if (fileMessages != null) {
+                return fileMessages;
+            }
+        }
+        Map<String, Integer> fileMessages = Collections.emptyMap();
+        try {
+            fileMessages = Collections.unmodifiableMap(scanMessages(file.asText()));
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, null, ex);
+        }
+        synchronized (this) {
+            messages.put(file, fileMessages);
+        }
+        return fileMessages;
+    }
+
+    private Listing getListing(FileObject messagesDirectory) {
+        if (messagesDirectory == null || !messagesDirectory.isFolder()) {
+            return null;
+        }
+        synchronized (this) {
+            Listing listing = listings.get(messagesDirectory);
+            if (listing != null) {
+                return listing;
+            }
+        }
+        Listing listing = new Listing(messagesDirectory);
+        synchronized (this) {
+            listings.put(messagesDirectory, listing);
+        }
+        return listing;
+    }
+
+    private FileObject getMessagesDirectory(String className) {
+        if (className.isEmpty()) {
+            return yiiModule.getMessages();
+        }
+        synchronized (this) {
+            if (classDirectories.containsKey(className)) {
+                return classDirectories.get(className);
+            }
+        }
+        FileObject messagesDirectory = null;
+        FileObject sourceDirectory = phpModule.getSourceDirectory();
+        if (sourceDirectory != null) {
+            ElementQuery.Index indexQuery = ElementQueryFactory.createIndexQuery(QuerySupportFactory.get(sourceDirectory));
+            for (ClassElement element : indexQuery.getClasses(NameKind.create(className, QuerySupport.Kind.EXACT))) {
+                FileObject classFile = element.getFileObject();
+                if (classFile != null && classFile.getParent() != null) {
+                    messagesDirectory = classFile.getParent().getFileObject(MESSAGES);
+                    break;
+                }
+            }
+        }
+        synchronized (this) {
+            classDirectories.put(className, messagesDirectory);
+        }
+        return messagesDirectory;
+    }
+
+    private static String getClassName(String category) {
+        int index = category.indexOf('.');
+        return index == -1 ? "" : category.substring(0, index); // NOI18N
+    }
+
+    /**
+     * Scan keys of the returned array with the lexer. Only string keys of the
+     * top level array are collected. If a key is duplicated, the last one is
+     * used as well as PHP.
+     *
+     * @param text text of the message file
+     * @return keys in the order of appearance and offsets of the keys
+     */
+    static Map<String, Integer> scanMessages(CharSequence text) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        TokenHierarchy<CharSequence> hierarchy = TokenHierarchy.create(text, PHPTokenId.language());
+        TokenSequence<PHPTokenId> ts = hierarchy.tokenSequence(PHPTokenId.language());
+        if (ts == null) {
+            return result;
+        }
+        ts.moveStart();
+        boolean isReturn = false;
+        int depth = 0;
+        String candidate = null;
+        int candidateOffset = -1;
+        while (ts.moveNext()) {
+            Token<PHPTokenId> token = ts.token();
+            PHPTokenId id = token.id();
+            if (!isReturn) {
+                isReturn = id == PHPTokenId.PHP_RETURN;
+                continue;
+            }
+            switch (id) {
+                case WHITESPACE:
+                case PHP_COMMENT:
+                case PHP_COMMENT_START:
+                case PHP_COMMENT_END:
+                case PHP_LINE_COMMENT:
+                case PHPDOC_COMMENT:
+                case PHPDOC_COMMENT_START:
+                case PHPDOC_COMMENT_END:
+                    continue;
+                case PHP_CONSTANT_ENCAPSED_STRING:
+                    String string = token.text().toString();
+                    candidate = depth == 1 && string.length() >= 2 ? string.substring(1, string.length() - 1) : null;
+                    candidateOffset = ts.offset();
+                    continue;
+                case PHP_SEMICOLON:
+                    if (depth == 0) {
+                        return result;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            CharSequence tokenText = token.text();
+            if (TokenUtilities.textEquals(tokenText, "(") || TokenUtilities.textEquals(tokenText, "[")) { // NOI18N
+                depth++;
+            } else if (TokenUtilities.textEquals(tokenText, ")") || TokenUtilities.textEquals(tokenText, "]")) { // NOI18N
+                depth--;
+            } else if (candidate != null && TokenUtilities.textEquals(tokenText, "=>")) { // NOI18N
+                result.put(candidate, candidateOffset);
+            }
+            candidate = null;
+        }
+        return result;
+    }
+
+    private static int lowerBound(String[] values, String prefix) {
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    //~ Inner classes
+    /**
+     * Message of a key in a locale.
+     */
+    public static final class Message {
+
+        private final String locale;
+        private final FileObject file;
+        private final int offset;
+
+        Message(String locale, FileObject file, int offset) {
+            this.locale = locale;
+            this.file = file;
+            this.offset = offset;
+        }
+
+        /**
+         * Get locale ID. e.g. ja, en_us
+         *
+         * @return locale ID
+         */
+        public String getLocale() {
+            return locale;
+        }
+
+        /**
+         * Get message file. i.e. messages/locale/category.php
+         *
+         * @return message file
+         */
+        public FileObject getFile() {
+            return file;
+        }
+
+        /**
+         * Get offset of the key in the message file.
+         *
+         * @return offset, -1 if the key is missing
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        public boolean isMissing() {
+            return offset == -1;
+        }
+    }
+
+    /**
+     * Message files of a messages directory. i.e. messages/locale/category.php
+     */
+    private static final class Listing {
+
+        // category -> message files of locales
+        private final Map<String, List<FileObject>> categories = new TreeMap<>();
+        // @GuardedBy("YiiMessageCatalog.this")
+        private final Map<String, String[]> mergedKeys = new HashMap<>();
+
+        Listing(FileObject messagesDirectory) {
+            for (FileObject locale : messagesDirectory.getChildren()) {
+                if (!locale.isFolder()) {
+                    continue;
+                }
+                for (FileObject file : locale.getChildren()) {
+                    if (!file.isData() || !PHP_EXT.equals(file.getExt())) {
+                        continue;
+                    }
+                    List<FileObject> files = categories.get(file.getName());
+                    if (files == null) {
+                        files = new ArrayList<>();
+                        categories.put(file.getName(), files);
+                    }
+                    files.add(file);
+                }
+            }
+        }
+
+        /**
+         * Check whether the file is a known message file. Changes of other
+         * files (e.g. new locales) need a new listing.
+         */
+        boolean contains(FileObject file) {
+            if (!file.isValid() || !file.isData()) {
+                return false;
+            }
+            List<FileObject> files = categories.get(file.getName());
+            return files != null && files.contains(file);
+        }
+    }
+}
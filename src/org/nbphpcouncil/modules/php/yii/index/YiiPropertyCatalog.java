@@ -0,0 +1,197 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.nbphpcouncil.modules.php.yii.YiiFileChangeSupport;
+import org.nbphpcouncil.modules.php.yii.util.YiiUtils;
+import org.netbeans.modules.parsing.spi.indexing.support.QuerySupport;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.netbeans.modules.php.editor.api.ElementQuery;
+import org.netbeans.modules.php.editor.api.ElementQueryFactory;
+import org.netbeans.modules.php.editor.api.NameKind;
+import org.netbeans.modules.php.editor.api.PhpModifiers;
+import org.netbeans.modules.php.editor.api.QuerySupportFactory;
+import org.netbeans.modules.php.editor.api.elements.ClassElement;
+import org.netbeans.modules.php.editor.api.elements.FieldElement;
+import org.netbeans.modules.php.editor.api.elements.MethodElement;
+import org.netbeans.modules.php.editor.api.elements.TypeElement;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Catalog of writable properties of classes (public fields and setters,
+ * including inherited ones). e.g. properties of widgets which can be
+ * initialized with an array.
+ *
+ * The class hierarchy is walked once per class. An entry is dropped when
+ * one of the files of the hierarchy is changed.
+ *
+ * @author junichi11
+ */
+public final class YiiPropertyCatalog implements YiiFileChangeSupport.Listener {
+
+    private static final String SETTER_PREFIX = "set"; // NOI18N
+    private final PhpModule phpModule;
+    // @GuardedBy("entries")
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    public YiiPropertyCatalog(PhpModule phpModule) {
+        this.phpModule = phpModule;
+    }
+
+    /**
+     * Get writable properties of the class.
+     *
+     * @param className class name
+     * @return sorted property names
+     */
+    public List<String> getProperties(String className) {
+        if (className == null || className.isEmpty()) {
+            return Collections.emptyList();
+        }
+        synchronized (entries) {
+            Entry entry = entries.get(className);
+            if (entry != null) {
+                return entry.properties;
+            }
+        }
+        Entry entry = createEntry(className);
+        synchronized (entries) {
+            entries.put(className, entry);
+        }
+        return entry.properties;
+    }
+
+    /**
+     * Build entries of the classes in advance.
+     *
+     * @param classNames class names
+     */
+    public void prepare(Collection<String> classNames) {
+        for (String className : classNames) {
+            getProperties(className);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    @Override
+    public void filesChanged(Set<FileObject> files, boolean isStructural) {
+        synchronized (entries) {
+            for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext();) {
+                Entry entry = iterator.next();
+                // not found classes may be added
+                if (entry.files.isEmpty() || !Collections.disjoint(entry.files, files)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private Entry createEntry(String className) {
+        FileObject sourceDirectory = phpModule.getSourceDirectory();
+        if (sourceDirectory == null) {
+            return new Entry(Collections.<String>emptyList(), Collections.<FileObject>emptySet());
+        }
+        ElementQuery.Index indexQuery = ElementQueryFactory.createIndexQuery(QuerySupportFactory.get(sourceDirectory));
+        Set<ClassElement> classElements = indexQuery.getClasses(NameKind.create(className, QuerySupport.Kind.EXACT));
+        if (classElements.isEmpty()) {
+            return new Entry(Collections.<String>emptyList(), Collections.<FileObject>emptySet());
+        }
+        ClassElement classElement = classElements.iterator().next();
+        List<TypeElement> types = new ArrayList<>();
+        types.add(classElement);
+        types.addAll(indexQuery.getInheritedTypes(classElement));
+
+        Set<String> properties = new TreeSet<>();
+        Set<FileObject> files = new HashSet<>();
+        for (TypeElement type : types) {
+            FileObject file = type.getFileObject();
+            if (file != null) {
+                files.add(file);
+            }
+            for (FieldElement field : indexQuery.getDeclaredFields(type)) {
+                PhpModifiers modifiers = field.getPhpModifiers();
+                if (modifiers.isPublic() && !modifiers.isStatic()) {
+                    properties.add(field.getName(false));
+                }
+            }
+            for (MethodElement method : indexQuery.getDeclaredMethods(type)) {
+                PhpModifiers modifiers = method.getPhpModifiers();
+                String name = method.getName();
+                if (modifiers.isPublic()
+                        && !modifiers.isStatic()
+                        && name.length() > SETTER_PREFIX.length()
+                        && name.startsWith(SETTER_PREFIX)
+                        && method.getParameters().size() == 1) {
+                    properties.add(YiiUtils.toFirstLowerCase(name.substring(SETTER_PREFIX.length())));
+                }
+            }
+        }
+        return new Entry(Collections.unmodifiableList(new ArrayList<>(properties)), files);
+    }
+
+    //~ Inner classes
+    private static final class Entry {
+
+        private final List<String> properties;
+        private final Set<FileObject> files;
+
+        public Entry(List<String> properties, Set<FileObject> files) {
+            this.properties = properties;
+            this.files = files;
+        }
+    }
+}
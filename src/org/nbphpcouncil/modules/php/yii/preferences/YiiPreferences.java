@@ -41,8 +41,10 @@
  */
 package org.nbphpcouncil.modules.php.yii.preferences;
 
+import java.util.prefs.PreferenceChangeListener;
 import java.util.prefs.Preferences;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.openide.util.WeakListeners;
 
 /**
  *
@@ -50,17 +52,17 @@ import org.netbeans.modules.php.api.phpmodule.PhpModule;
  */
 public class YiiPreferences {
 
-    private static final String ENABLED = "enabled"; // NOI18N
+    public static final String ENABLED = "enabled"; // NOI18N
     private static final String USE_AUTO_CREATE_VIEW = "use-auto-create-view"; // NOI18N
     private static final String FALLBACK_TO_DEFAULT_VIEWS = "fallback-to-default-views"; // NOI18N
-    private static final String VIEWS_PATH = "views-path"; // NOI18N
-    private static final String CONTROLLERS_PATH = "controllers-path"; // NOI18N
-    private static final String EXT_PATH = "ext-path"; // NOI18N
-    private static final String ZII_PATH = "zii-path"; // NOI18N
-    private static final String APPLICATION_PATH = "application-path"; // NOI18N
-    private static final String SYSTEM_PATH = "system-path"; // NOI18N
-    private static final String THEMES_PATH = "themes-path"; // NOI18N
-    private static final String MESSAGES_PATH = "messages-path"; // NOI18N
+    public static final String VIEWS_PATH = "views-path"; // NOI18N
+    public static final String CONTROLLERS_PATH = "controllers-path"; // NOI18N
+    public static final String EXT_PATH = "ext-path"; // NOI18N
+    public static final String ZII_PATH = "zii-path"; // NOI18N
+    public static final String APPLICATION_PATH = "application-path"; // NOI18N
+    public static final String SYSTEM_PATH = "system-path"; // NOI18N
+    public static final String THEMES_PATH = "themes-path"; // NOI18N
+    public static final String MESSAGES_PATH = "messages-path"; // NOI18N
 
     public static boolean isEnabled(PhpModule phpModule) {
         return getPreferences(phpModule).getBoolean(ENABLED, false);
@@ -150,6 +152,29 @@ public class YiiPreferences {
         getPreferences(phpModule).put(MESSAGES_PATH, path);
     }
 
+    public static void addPreferenceChangeListener(PhpModule phpModule, PreferenceChangeListener listener) {
+        getPreferences(phpModule).addPreferenceChangeListener(listener);
+    }
+
+    /**
+     * Add a weak listener. The preferences are used as the source, so the
+     * weak listener is removed when the listener is garbage collected.
+     *
+     * @param phpModule PhpModule
+     * @param listener listener
+     * @return weak listener, use it for removing
+     */
+    public static PreferenceChangeListener addWeakPreferenceChangeListener(PhpModule phpModule, PreferenceChangeListener listener) {
+        Preferences preferences = getPreferences(phpModule);
+        PreferenceChangeListener weakListener = WeakListeners.create(PreferenceChangeListener.class, listener, preferences);
+        preferences.addPreferenceChangeListener(weakListener);
+        return weakListener;
+    }
+
+    public static void removePreferenceChangeListener(PhpModule phpModule, PreferenceChangeListener listener) {
+        getPreferences(phpModule).removePreferenceChangeListener(listener);
+    }
+
     private static Preferences getPreferences(PhpModule phpModule) {
         return phpModule.getPreferences(YiiPreferences.class, true);
     }
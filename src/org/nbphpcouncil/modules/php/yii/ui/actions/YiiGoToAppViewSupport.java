@@ -55,19 +55,29 @@ public final class YiiGoToAppViewSupport extends YiiGoToViewSupport {
     private String viewPath;
     private String themeName;
     private boolean isTheme;
+    private boolean isFallback;
 
     public YiiGoToAppViewSupport(FileObject controller, String actionId) {
         super(controller, actionId);
-        init();
+        if (controller == null || phpModule == null) {
+            return;
+        }
+
+        YiiModule yiiModule = YiiModuleFactory.create(phpModule);
+        init(yiiModule.getThemeName(), YiiPreferences.isFallbackToDefaultViews(phpModule));
     }
 
-    private void init() {
+    public YiiGoToAppViewSupport(FileObject controller, String actionId, String themeName, boolean isFallback) {
+        super(controller, actionId);
         if (controller == null || phpModule == null) {
             return;
         }
+        init(themeName, isFallback);
+    }
 
-        YiiModule yiiModule = YiiModuleFactory.create(phpModule);
-        themeName = yiiModule.getThemeName();
+    private void init(String themeName, boolean isFallback) {
+        this.themeName = themeName;
+        this.isFallback = isFallback;
         isTheme = !StringUtils.isEmpty(themeName);
         setViewPath(createViewPath(false));
     }
@@ -79,7 +89,6 @@ public final class YiiGoToAppViewSupport extends YiiGoToViewSupport {
         }
         // get module
         YiiModule yiiModule = YiiModuleFactory.create(phpModule);
-        boolean isFallback = YiiPreferences.isFallbackToDefaultViews(phpModule);
 
         FileObject view = null;
         if (isTheme) {
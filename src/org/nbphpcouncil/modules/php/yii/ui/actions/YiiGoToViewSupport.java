@@ -82,6 +82,25 @@ public abstract class YiiGoToViewSupport {
         return new YiiGoToAppViewSupport(controller, actionId);
     }
 
+    /**
+     * Create with the theme settings instead of reading the current ones.
+     *
+     * @param controller controller file
+     * @param actionId action id
+     * @param themeName theme name
+     * @param isFallback true if the default views are used when the theme
+     * doesn't have the view
+     * @return YiiGoToViewSupport
+     */
+    public static YiiGoToViewSupport create(FileObject controller, String actionId, String themeName, boolean isFallback) {
+
+        if (YiiUtils.isInModules(controller)) {
+            return new YiiGoToModulesViewSupport(controller, actionId);
+        }
+
+        return new YiiGoToAppViewSupport(controller, actionId, themeName, isFallback);
+    }
+
     public boolean isEnabled() {
         return controller != null && phpModule != null && actionId != null;
     }
@@ -0,0 +1,164 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.util;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.nbphpcouncil.modules.php.yii.YiiFileChangeSupport;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ * LRU cache of resolved path aliases. Negative results are also cached.
+ * Entries are dropped when files under the alias root are created, deleted
+ * or renamed or when the aliases are rebuilt. Changes of contents are
+ * ignored since the resolution depends on the file tree only.
+ *
+ * @author junichi11
+ */
+public final class PathAliasCache implements YiiFileChangeSupport.Listener {
+
+    static final int MAX_SIZE = 512;
+    // @GuardedBy("this")
+    private final Map<String, Entry> cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+    // @GuardedBy("this")
+    private PathAliasTrie<FileObject> aliases;
+
+    /**
+     * Get FileObject for the alias path.
+     *
+     * @param aliases current path aliases
+     * @param aliasPath alias path e.g. application.components.MyComponent
+     * @return FileObject if it exists, otherwise null
+     */
+    public FileObject getFileObject(PathAliasTrie<FileObject> aliases, String aliasPath) {
+        synchronized (this) {
+            if (this.aliases != aliases) {
+                // aliases are rebuilt
+                cache.clear();
+                this.aliases = aliases;
+            }
+            Entry entry = cache.get(aliasPath);
+            if (entry != null) {
+                if (entry.file == null || entry.file.isValid()) {
+                    return entry.file;
+                }
+                cache.remove(aliasPath);
+            }
+        }
+        PathAliasTrie.Match<FileObject> match = aliases.find(aliasPath);
+        if (match == null) {
+            // not cached: there is no root to be invalidated
+            return null;
+        }
+        FileObject file = YiiPathAliasSupport.resolve(match);
+        synchronized (this) {
+            if (this.aliases == aliases) {
+                cache.put(aliasPath, new Entry(match.getValue(), file));
+            }
+        }
+        return file;
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        aliases = null;
+    }
+
+    synchronized int size() {
+        return cache.size();
+    }
+
+    @Override
+    public void filesChanged(Set<FileObject> files, boolean isStructural) {
+        if (!isStructural) {
+            return;
+        }
+        synchronized (this) {
+            Set<FileObject> roots = new HashSet<>();
+            for (Entry entry : cache.values()) {
+                roots.add(entry.root);
+            }
+            Set<FileObject> changedRoots = new HashSet<>();
+            for (FileObject root : roots) {
+                for (FileObject file : files) {
+                    if (root.equals(file)
+                            || FileUtil.isParentOf(root, file)
+                            || FileUtil.isParentOf(file, root)) {
+                        changedRoots.add(root);
+                        break;
+                    }
+                }
+            }
+            if (changedRoots.isEmpty()) {
+                return;
+            }
+            for (Iterator<Entry> iterator = cache.values().iterator(); iterator.hasNext();) {
+                if (changedRoots.contains(iterator.next().root)) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    //~ Inner classes
+    private static final class Entry {
+
+        private final FileObject root;
+        private final FileObject file;
+
+        public Entry(FileObject root, FileObject file) {
+            this.root = root;
+            this.file = file;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable segment trie of path aliases. e.g. application, my.alias
+ *
+ * @author junichi11
+ * @param <T> value of an alias (e.g. directory)
+ */
+public final class PathAliasTrie<T> {
+
+    private static final String DOT = "."; // NOI18N
+    private final Node<T> root = new Node<>();
+
+    public PathAliasTrie(Map<String, T> aliases) {
+        for (Map.Entry<String, T> entry : aliases.entrySet()) {
+            put(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private void put(String alias, T value) {
+        if (alias == null || alias.isEmpty() || value == null) {
+            return;
+        }
+        Node<T> node = root;
+        for (String segment : YiiPathAliasSupport.splitAliasPath(alias)) {
+            Node<T> child = node.children.get(segment);
+            if (child == null) {
+                child = new Node<>();
+                node.children.put(segment, child);
+            }
+            node = child;
+        }
+        node.alias = alias;
+        node.value = value;
+    }
+
+    /**
+     * Get the value of the alias.
+     *
+     * @param alias alias name
+     * @return value if the alias exists, otherwise null
+     */
+    public T get(String alias) {
+        Node<T> node = getNode(alias);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Find the longest alias which is a prefix of the alias path.
+     *
+     * @param aliasPath alias path e.g. application.components.MyComponent
+     * @return match if an alias is found, otherwise null
+     */
+    public Match<T> find(String aliasPath) {
+        String[] segments = YiiPathAliasSupport.splitAliasPath(aliasPath);
+        if (segments == null) {
+            return null;
+        }
+        Node<T> node = root;
+        Node<T> found = null;
+        int foundIndex = 0;
+        for (int i = 0; i < segments.length; i++) {
+            node = node.children.get(segments[i]);
+            if (node == null) {
+                break;
+            }
+            if (node.value != null) {
+                found = node;
+                foundIndex = i + 1;
+            }
+        }
+        if (found == null) {
+            return null;
+        }
+        List<String> rest = new ArrayList<>(segments.length - foundIndex);
+        for (int i = foundIndex; i < segments.length; i++) {
+            rest.add(segments[i]);
+        }
+        return new Match<>(found.alias, found.value, rest);
+    }
+
+    /**
+     * Get aliases which start with the prefix.
+     *
+     * @param prefix prefix e.g. app, my.al
+     * @return sorted alias names
+     */
+    public List<String> getAliases(String prefix) {
+        List<String> aliases = new ArrayList<>();
+        int lastDot = prefix.lastIndexOf(DOT);
+        Node<T> parent = lastDot == -1 ? root : getNode(prefix.substring(0, lastDot));
+        if (parent == null) {
+            return aliases;
+        }
+        String filter = prefix.substring(lastDot + 1);
+        for (Map.Entry<String, Node<T>> entry : parent.children.entrySet()) {
+            if (entry.getKey().startsWith(filter)) {
+                collect(entry.getValue(), aliases);
+            }
+        }
+        return aliases;
+    }
+
+    private Node<T> getNode(String alias) {
+        String[] segments = YiiPathAliasSupport.splitAliasPath(alias);
+        if (segments == null) {
+            return null;
+        }
+        Node<T> node = root;
+        for (String segment : segments) {
+            node = node.children.get(segment);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private static <T> void collect(Node<T> node, List<String> aliases) {
+        if (node.value != null) {
+            aliases.add(node.alias);
+        }
+        for (Node<T> child : node.children.values()) {
+            collect(child, aliases);
+        }
+    }
+
+    //~ Inner classes
+    private static final class Node<T> {
+
+        private final Map<String, Node<T>> children = new TreeMap<>();
+        private String alias;
+        private T value;
+    }
+
+    public static final class Match<T> {
+
+        private final String alias;
+        private final T value;
+        private final List<String> rest;
+
+        Match(String alias, T value, List<String> rest) {
+            this.alias = alias;
+            this.value = value;
+            this.rest = Collections.unmodifiableList(rest);
+        }
+
+        /**
+         * Get the matched alias.
+         *
+         * @return alias name
+         */
+        public String getAlias() {
+            return alias;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        /**
+         * Get segments after the alias.
+         *
+         * @return segments, empty list if the alias path is the alias itself
+         */
+        public List<String> getRest() {
+            return rest;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.util;
+
+import org.netbeans.api.lexer.Token;
+import org.netbeans.api.lexer.TokenSequence;
+import org.netbeans.api.lexer.TokenUtilities;
+import org.netbeans.modules.php.editor.lexer.PHPTokenId;
+
+/**
+ * Context of the method call which encloses the caret. e.g. for
+ * <code>$this->render('index', array('model' => |))</code>, the receiver is
+ * $this, the method is render, the argument index is 1 and the nesting depth
+ * is 1.
+ *
+ * The token sequence is scanned backward once and at most
+ * {@link #MAX_TOKENS} tokens except whitespaces and comments are visited. The
+ * scan also stops at statement and block boundaries (;, { and }). Token texts
+ * are not converted to strings except for the method name and the receiver
+ * name.
+ *
+ * @author junichi11
+ */
+public final class YiiCallContext {
+
+    public enum Receiver {
+
+        /**
+         * $this->method()
+         */
+        THIS,
+        /**
+         * Yii::method()
+         */
+        YII,
+        /**
+         * Yii::app()->method()
+         */
+        YII_APP,
+        /**
+         * $variable->method() e.g. $form
+         */
+        VARIABLE,
+        /**
+         * ClassName::method(), self::method(), parent::method()
+         */
+        CLASS,
+        /**
+         * function()
+         */
+        NONE,
+        /**
+         * unknown e.g. $this->getOwner()->method()
+         */
+        OTHER
+    }
+
+    // e.g. long columns of CGridView
+    static final int MAX_TOKENS = 2048;
+    private static final String YII = "Yii"; // NOI18N
+    private static final String APP = "app"; // NOI18N
+    private static final String THIS = "$this"; // NOI18N
+    private final Receiver receiver;
+    private final String receiverName;
+    private final String methodName;
+    private final int argumentIndex;
+    private final int nestingDepth;
+    private final int methodOffset;
+
+    private YiiCallContext(Receiver receiver, String receiverName, String methodName, int argumentIndex, int nestingDepth, int methodOffset) {
+        this.receiver = receiver;
+        this.receiverName = receiverName;
+        this.methodName = methodName;
+        this.argumentIndex = argumentIndex;
+        this.nestingDepth = nestingDepth;
+        this.methodOffset = methodOffset;
+    }
+
+    /**
+     * Analyze the call which encloses the offset.
+     *
+     * @param ts token sequence
+     * @param offset caret offset
+     * @return context if the offset is in arguments of a method call,
+     * otherwise null
+     */
+    public static YiiCallContext analyze(TokenSequence<PHPTokenId> ts, int offset) {
+        if (ts == null) {
+            return null;
+        }
+        ts.move(offset);
+        if (!ts.moveNext()) {
+            return null;
+        }
+        int argumentIndex = 0;
+        int nestingDepth = 0;
+        // depth of closed parentheses and brackets
+        int depth = 0;
+        int count = 0;
+        while (ts.movePrevious()) {
+            Token<PHPTokenId> token = ts.token();
+            PHPTokenId id = token.id();
+            if (isWhitespaceOrComment(id)) {
+                continue;
+            }
+            if (++count > MAX_TOKENS) {
+                return null;
+            }
+            switch (id) {
+                case PHP_SEMICOLON:
+                case PHP_CURLY_OPEN:
+                case PHP_CURLY_CLOSE:
+                case PHP_OPENTAG:
+                case PHP_FUNCTION:
+                    return null;
+                case PHP_TOKEN:
+                    break;
+                default:
+                    continue;
+            }
+            CharSequence text = token.text();
+            if (TokenUtilities.textEquals(text, ")") || TokenUtilities.textEquals(text, "]")) { // NOI18N
+                depth++;
+            } else if (TokenUtilities.textEquals(text, "(") || TokenUtilities.textEquals(text, "[")) { // NOI18N
+                if (depth > 0) {
+                    depth--;
+                    continue;
+                }
+                // opening of the enclosing call or array
+                if (TokenUtilities.textEquals(text, "[")) { // NOI18N
+                    nestingDepth++;
+                    argumentIndex = 0;
+                    continue;
+                }
+                Token<PHPTokenId> previous = previousToken(ts);
+                if (previous == null) {
+                    return null;
+                }
+                if (previous.id() == PHPTokenId.PHP_ARRAY) {
+                    nestingDepth++;
+                    argumentIndex = 0;
+                    continue;
+                }
+                if (previous.id() != PHPTokenId.PHP_STRING) {
+                    // e.g. if (, (expression)
+                    return null;
+                }
+                String methodName = previous.text().toString();
+                int methodOffset = ts.offset();
+                return createContext(ts, methodName, argumentIndex, nestingDepth, methodOffset);
+            } else if (depth == 0 && TokenUtilities.textEquals(text, ",")) { // NOI18N
+                argumentIndex++;
+            }
+        }
+        return null;
+    }
+
+    private static YiiCallContext createContext(TokenSequence<PHPTokenId> ts, String methodName, int argumentIndex, int nestingDepth, int methodOffset) {
+        Token<PHPTokenId> operator = previousToken(ts);
+        if (operator == null) {
+            return new YiiCallContext(Receiver.NONE, null, methodName, argumentIndex, nestingDepth, methodOffset);
+        }
+        Token<PHPTokenId> token;
+        switch (operator.id()) {
+            case PHP_OBJECT_OPERATOR:
+                token = previousToken(ts);
+                if (token == null) {
+                    break;
+                }
+                if (token.id() == PHPTokenId.PHP_VARIABLE) {
+                    if (TokenUtilities.textEquals(token.text(), THIS)) {
+                        return new YiiCallContext(Receiver.THIS, THIS, methodName, argumentIndex, nestingDepth, methodOffset);
+                    }
+                    return new YiiCallContext(Receiver.VARIABLE, token.text().toString(), methodName, argumentIndex, nestingDepth, methodOffset);
+                }
+                if (isYiiApp(ts, token)) {
+                    return new YiiCallContext(Receiver.YII_APP, null, methodName, argumentIndex, nestingDepth, methodOffset);
+                }
+                break;
+            case PHP_PAAMAYIM_NEKUDOTAYIM:
+                token = previousToken(ts);
+                if (token == null) {
+                    break;
+                }
+                if (token.id() == PHPTokenId.PHP_STRING && TokenUtilities.textEquals(token.text(), YII)) {
+                    return new YiiCallContext(Receiver.YII, YII, methodName, argumentIndex, nestingDepth, methodOffset);
+                }
+                if (token.id() == PHPTokenId.PHP_STRING
+                        || token.id() == PHPTokenId.PHP_SELF
+                        || token.id() == PHPTokenId.PHP_PARENT) {
+                    return new YiiCallContext(Receiver.CLASS, token.text().toString(), methodName, argumentIndex, nestingDepth, methodOffset);
+                }
+                break;
+            case PHP_NEW:
+                // new ClassName(
+                return null;
+            default:
+                return new YiiCallContext(Receiver.NONE, null, methodName, argumentIndex, nestingDepth, methodOffset);
+        }
+        return new YiiCallContext(Receiver.OTHER, null, methodName, argumentIndex, nestingDepth, methodOffset);
+    }
+
+    /**
+     * Check Yii::app() backward. The current token should be ")".
+     */
+    private static boolean isYiiApp(TokenSequence<PHPTokenId> ts, Token<PHPTokenId> closeParen) {
+        if (!TokenUtilities.textEquals(closeParen.text(), ")")) { // NOI18N
+            return false;
+        }
+        Token<PHPTokenId> token = previousToken(ts);
+        if (token == null || !TokenUtilities.textEquals(token.text(), "(")) { // NOI18N
+            return false;
+        }
+        token = previousToken(ts);
+        if (token == null || token.id() != PHPTokenId.PHP_STRING || !TokenUtilities.textEquals(token.text(), APP)) {
+            return false;
+        }
+        token = previousToken(ts);
+        if (token == null || token.id() != PHPTokenId.PHP_PAAMAYIM_NEKUDOTAYIM) {
+            return false;
+        }
+        token = previousToken(ts);
+        return token != null && token.id() == PHPTokenId.PHP_STRING && TokenUtilities.textEquals(token.text(), YII);
+    }
+
+    /**
+     * Move to the previous token which is not whitespace nor comment.
+     */
+    private static Token<PHPTokenId> previousToken(TokenSequence<PHPTokenId> ts) {
+        while (ts.movePrevious()) {
+            Token<PHPTokenId> token = ts.token();
+            if (!isWhitespaceOrComment(token.id())) {
+                return token;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isWhitespaceOrComment(PHPTokenId id) {
+        switch (id) {
+            case WHITESPACE:
+            case PHP_COMMENT:
+            case PHP_COMMENT_START:
+            case PHP_COMMENT_END:
+            case PHP_LINE_COMMENT:
+            case PHPDOC_COMMENT:
+            case PHPDOC_COMMENT_START:
+            case PHPDOC_COMMENT_END:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public Receiver getReceiver() {
+        return receiver;
+    }
+
+    /**
+     * Get receiver name. e.g. $this, $form, Yii, ClassName
+     *
+     * @return receiver name if it is available, otherwise null
+     */
+    public String getReceiverName() {
+        return receiverName;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    /**
+     * Get the index of the argument which contains the offset (0-based).
+     *
+     * @return argument index
+     */
+    public int getArgumentIndex() {
+        return argumentIndex;
+    }
+
+    /**
+     * Get the nesting depth of arrays in the argument. e.g. 0 for
+     * <code>render(|)</code>, 1 for <code>render('index', array(|))</code>
+     *
+     * @return nesting depth
+     */
+    public int getNestingDepth() {
+        return nestingDepth;
+    }
+
+    /**
+     * Get the start offset of the method name.
+     *
+     * @return method offset
+     */
+    public int getMethodOffset() {
+        return methodOffset;
+    }
+}
@@ -41,6 +41,7 @@
  */
 package org.nbphpcouncil.modules.php.yii.util;
 
+import java.util.List;
 import org.nbphpcouncil.modules.php.yii.YiiModule;
 import org.nbphpcouncil.modules.php.yii.YiiModule.PATH_ALIAS;
 import org.nbphpcouncil.modules.php.yii.YiiModuleFactory;
@@ -55,38 +56,41 @@ public class YiiPathAliasSupport {
 
     /**
      * Get FileObject for path alias. e.g. application.component.MyComponent
+     * The longest defined alias is used. (custom aliases are also available)
      *
      * @param phpModule
      * @param aliasPath
      * @return
      */
     public static FileObject getFileObject(PhpModule phpModule, String aliasPath) {
-        String[] paths = splitAliasPath(aliasPath);
-        if (paths == null || paths.length < 1) {
+        if (aliasPath == null || aliasPath.isEmpty()) {
             return null;
         }
 
         YiiModule yiiModule = YiiModuleFactory.create(phpModule);
-        FileObject baseDirectory = null;
-        StringBuilder sb = new StringBuilder();
-        for (String path : paths) {
-            // first time
-            if (baseDirectory == null) {
-                baseDirectory = yiiModule.getDirectory(toPathAlias(path));
-                if (baseDirectory == null) {
-                    return null;
-                }
-                continue;
-            }
+        return yiiModule.getPathAliasCache().getFileObject(yiiModule.getPathAliases(), aliasPath);
+    }
 
-            // create relative path
-            sb.append("/").append(path); // NOI18N
-        }
-        if (paths.length > 1) {
-            sb.deleteCharAt(0);
-            sb.append(".php"); // NOI18N
+    /**
+     * Get FileObject for the matched alias.
+     *
+     * @param match match of the path aliases
+     * @return FileObject if it exists, otherwise null
+     */
+    static FileObject resolve(PathAliasTrie.Match<FileObject> match) {
+        FileObject baseDirectory = match.getValue();
+        List<String> rest = match.getRest();
+        if (rest.isEmpty()) {
+            return baseDirectory;
         }
 
+        // create relative path
+        StringBuilder sb = new StringBuilder();
+        for (String path : rest) {
+            sb.append("/").append(path); // NOI18N
+        }
+        sb.deleteCharAt(0);
+        sb.append(".php"); // NOI18N
         return baseDirectory.getFileObject(sb.toString());
     }
 
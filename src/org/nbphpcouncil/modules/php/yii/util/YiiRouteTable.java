@@ -0,0 +1,147 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable segment trie of routes. e.g. site/index, admin/user/update
+ *
+ * A route consists of the module name, the nested path, the controller id
+ * and the action id. A route of a controller (i.e. the default action) should
+ * be added as well.
+ *
+ * @author junichi11
+ */
+public final class YiiRouteTable {
+
+    private static final String SLASH = "/"; // NOI18N
+    private final Node root = new Node();
+
+    public YiiRouteTable(Collection<String> routes) {
+        for (String route : routes) {
+            put(route);
+        }
+    }
+
+    private void put(String route) {
+        if (route == null || route.isEmpty()) {
+            return;
+        }
+        Node node = root;
+        for (String segment : route.split(SLASH)) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            Node child = node.children.get(segment);
+            if (child == null) {
+                child = new Node();
+                node.children.put(segment, child);
+            }
+            node = child;
+        }
+        if (node != root) {
+            node.isRoute = true;
+        }
+    }
+
+    /**
+     * Get routes of the last segment which start with the prefix. Routes
+     * which have children end with "/". e.g. "admin/" for "ad"
+     *
+     * @param prefix prefix e.g. si, site/in
+     * @return sorted routes
+     */
+    public List<String> getRoutes(String prefix) {
+        List<String> routes = new ArrayList<>();
+        int lastSlash = prefix.lastIndexOf(SLASH);
+        String parentPath = lastSlash == -1 ? "" : prefix.substring(0, lastSlash + 1); // NOI18N
+        Node parent = lastSlash == -1 ? root : getNode(prefix.substring(0, lastSlash));
+        if (parent == null) {
+            return routes;
+        }
+        String filter = prefix.substring(lastSlash + 1);
+        for (Map.Entry<String, Node> entry : parent.children.entrySet()) {
+            String segment = entry.getKey();
+            if (!segment.startsWith(filter)) {
+                continue;
+            }
+            Node node = entry.getValue();
+            if (node.isRoute) {
+                routes.add(parentPath + segment);
+            }
+            if (!node.children.isEmpty()) {
+                routes.add(parentPath + segment + SLASH);
+            }
+        }
+        return routes;
+    }
+
+    public boolean isEmpty() {
+        return root.children.isEmpty();
+    }
+
+    private Node getNode(String route) {
+        if (route.isEmpty()) {
+            return null;
+        }
+        Node node = root;
+        for (String segment : route.split(SLASH, -1)) {
+            node = node.children.get(segment);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    //~ Inner classes
+    private static final class Node {
+
+        private final Map<String, Node> children = new TreeMap<>();
+        private boolean isRoute;
+    }
+}
@@ -47,31 +47,22 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.nbphpcouncil.modules.php.yii.Yii;
+import org.nbphpcouncil.modules.php.yii.YiiFileDescriptor;
 import org.nbphpcouncil.modules.php.yii.YiiModule;
 import org.nbphpcouncil.modules.php.yii.YiiModuleFactory;
 import org.nbphpcouncil.modules.php.yii.YiiPhpFrameworkProvider;
-import org.netbeans.modules.csl.spi.ParserResult;
-import org.netbeans.modules.parsing.api.ParserManager;
-import org.netbeans.modules.parsing.api.ResultIterator;
-import org.netbeans.modules.parsing.api.Source;
-import org.netbeans.modules.parsing.api.UserTask;
-import org.netbeans.modules.parsing.spi.ParseException;
+import org.nbphpcouncil.modules.php.yii.config.YiiConfigParser;
+import org.nbphpcouncil.modules.php.yii.index.YiiIndex;
 import org.netbeans.modules.php.api.editor.PhpClass;
 import org.netbeans.modules.php.api.phpmodule.PhpModule;
 import org.netbeans.modules.php.api.util.FileUtils;
 import org.netbeans.modules.php.api.util.StringUtils;
-import org.netbeans.modules.php.editor.parser.api.Utils;
-import org.netbeans.modules.php.editor.parser.astnodes.ArrayElement;
-import org.netbeans.modules.php.editor.parser.astnodes.Expression;
-import org.netbeans.modules.php.editor.parser.astnodes.visitors.DefaultVisitor;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 import org.openide.util.Exceptions;
@@ -110,6 +101,21 @@ public class YiiUtils {
         return PhpModule.Factory.forFileObject(fileObject);
     }
 
+    /**
+     * Get the descriptor of the file.
+     *
+     * @param fileObject
+     * @return descriptor if the file is in a php module, otherwise null
+     */
+    private static YiiFileDescriptor getFileDescriptor(FileObject fileObject) {
+        PhpModule phpModule = getPhpModule(fileObject);
+        // return null if use external files #11
+        if (phpModule == null) {
+            return null;
+        }
+        return YiiModuleFactory.create(phpModule).getFileClassifier().classify(fileObject);
+    }
+
     /**
      * Get include path.
      *
@@ -151,31 +157,8 @@ public class YiiUtils {
                 || !FileUtils.isPhpFile(fo)) {
             return false;
         }
-
-        String subpath = getPathFromWebroot(fo);
-        if (StringUtils.isEmpty(subpath)) {
-            return false;
-        }
-        return subpath.contains("/views/");
-    }
-
-    /**
-     * Get path from webroot directory.
-     *
-     * @param fo
-     * @return
-     */
-    private static String getPathFromWebroot(FileObject fo) {
-        PhpModule phpModule = getPhpModule(fo);
-        // return null if use external files #11
-        if (phpModule == null) {
-            return null;
-        }
-        String path = fo.getPath();
-        YiiModule yiiModule = YiiModuleFactory.create(phpModule);
-        FileObject webroot = yiiModule.getWebroot();
-        String webrootPath = webroot.getPath();
-        return path.replace(webrootPath, ""); // NOI18N
+        YiiFileDescriptor descriptor = getFileDescriptor(fo);
+        return descriptor != null && descriptor.isView();
     }
 
     /**
@@ -237,6 +220,10 @@ public class YiiUtils {
      * @return sub directory path from controllers dir to file.
      */
     public static String getSubDirectoryPathForController(FileObject controller) {
+        YiiFileDescriptor descriptor = getFileDescriptor(controller);
+        if (descriptor != null && descriptor.getRole() == YiiFileDescriptor.Role.CONTROLLER) {
+            return descriptor.getNestedPath();
+        }
         String filePath = controller.getPath();
         if (!filePath.contains("/controllers/")) { // NOI18N
             return null;
@@ -277,29 +264,7 @@ public class YiiUtils {
      * @return theme name if find the theme, otherwise empty string.
      */
     public static String getThemeName(FileObject main) {
-        final Set<String> themes = new HashSet<>();
-        try {
-            ParserManager.parse(Collections.singleton(Source.create(main)), new UserTask() {
-                @Override
-                public void run(ResultIterator resultIterator) throws Exception {
-                    if (resultIterator == null) {
-                        return;
-                    }
-                    ParserResult parserResult = (ParserResult) resultIterator.getParserResult();
-                    final MainVisitor mainVisitor = new MainVisitor();
-                    mainVisitor.scan(Utils.getRoot(parserResult));
-                    themes.addAll(mainVisitor.getThemeName());
-                }
-            });
-        } catch (ParseException ex) {
-            Exceptions.printStackTrace(ex);
-        }
-        String themeName = ""; // NOI18N
-        for (String theme : themes) {
-            themeName = theme;
-            break;
-        }
-        return themeName;
+        return YiiConfigParser.parse(main).getTheme();
     }
 
     /**
@@ -336,11 +301,11 @@ public class YiiUtils {
      * @return true if file is controller file, otherwise false.
      */
     public static boolean isController(FileObject fo) {
-        String subPath = getSubDirectoryPathForController(fo);
-        if (subPath == null) {
+        if (fo == null || !fo.isData() || !FileUtils.isPhpFile(fo)) {
             return false;
         }
-        return fo.isData() && FileUtils.isPhpFile(fo) && fo.getName().endsWith(CONTROLLER_SUFFIX);
+        YiiFileDescriptor descriptor = getFileDescriptor(fo);
+        return descriptor != null && descriptor.getRole() == YiiFileDescriptor.Role.CONTROLLER;
     }
 
     /**
@@ -355,24 +320,18 @@ public class YiiUtils {
         }
 
         // views
-        String subpath = getSubpathToView(view);
-        String controllerId = ""; // NOI18N
-        String nestedPath = ""; // NOI18N
-        if (!subpath.isEmpty()) {
-            int lastSlash = subpath.lastIndexOf("/"); // NOI18N
-            if (lastSlash == -1) {
-                controllerId = subpath;
-                nestedPath = ""; // NOI18N
-            } else {
-                controllerId = subpath.substring(lastSlash + 1);
-                nestedPath = subpath.substring(0, lastSlash + 1);
-            }
+        YiiFileDescriptor descriptor = getFileDescriptor(view);
+        if (descriptor == null || descriptor.getRole() != YiiFileDescriptor.Role.VIEW) {
+            return null;
         }
+        String controllerId = descriptor.getControllerId();
+        String nestedPath = descriptor.getNestedPath();
+        String subpath = nestedPath + controllerId;
 
         // add depth for sub path
         FileObject controller = null;
         String controllerName = getControllerFileName(controllerId);
-        if (isInModules(view)) {
+        if (!descriptor.getModuleNames().isEmpty()) {
             String nestedPathDepth = toSubpathDepth(nestedPath);
             String format = String.format(CONTROLLER_RELATIVE_PATH_FORMAT, nestedPathDepth, "", nestedPath, controllerName);
             controller = view.getFileObject(format);
@@ -385,6 +344,13 @@ public class YiiUtils {
                     return null;
                 }
 
+                // from index
+                YiiIndex yiiIndex = yiiModule.getIndex();
+                controller = yiiIndex.getController(controllersDirectory, nestedPath, controllerId);
+                if (controller != null) {
+                    return controller;
+                }
+
                 // nested directory
                 String path = String.format("%s%s.php", nestedPath, controllerName); // NOI18N
                 controller = controllersDirectory.getFileObject(path);
@@ -409,16 +375,6 @@ public class YiiUtils {
         return controller;
     }
 
-    private static String getSubpathToView(FileObject view) {
-        String subpathFromWebroot = getPathFromWebroot(view);
-        String subpath = ""; // NOI18N
-        if (subpathFromWebroot.contains("/views/")) { // NOI18N
-            subpath = subpathFromWebroot.replaceAll(".+/views/", ""); // NOI18N
-            subpath = subpath.replace("/" + view.getNameExt(), ""); // NOI18N
-        }
-        return subpath;
-    }
-
     /**
      * Get subpath depth.
      *
@@ -673,29 +629,6 @@ public class YiiUtils {
         return sourceDirectory.getFileObject(path);
     }
 
-    private static class MainVisitor extends DefaultVisitor {
-
-        private static final String THEME = "theme"; // NOI18N
-        private final Set<String> themeName = new HashSet<>();
-
-        @Override
-        public void visit(ArrayElement node) {
-            super.visit(node);
-            Expression key = node.getKey();
-            String keyName = YiiCodeUtils.getStringValue(key);
-            if (keyName.equals(THEME)) {
-                String value = YiiCodeUtils.getStringValue(node.getValue());
-                if (!value.isEmpty()) {
-                    themeName.add(value);
-                }
-            }
-        }
-
-        public synchronized Set<String> getThemeName() {
-            return themeName;
-        }
-    }
-
     /**
      * Check whether file is within modules directory.
      *
@@ -703,11 +636,8 @@ public class YiiUtils {
      * @return true if file exists within modules directory, otherwise false.
      */
     public static boolean isInModules(FileObject fileObject) {
-        String pathFromWebroot = getPathFromWebroot(fileObject);
-        if (pathFromWebroot != null) {
-            return pathFromWebroot.contains("/modules/"); // NOI18N
-        }
-        return false;
+        YiiFileDescriptor descriptor = getFileDescriptor(fileObject);
+        return descriptor != null && !descriptor.getModuleNames().isEmpty();
     }
 
     /**
@@ -718,16 +648,14 @@ public class YiiUtils {
      * null.
      */
     public static String getModuleName(FileObject fileObject) {
-        if (fileObject == null || !isInModules(fileObject)) {
+        if (fileObject == null) {
             return null;
         }
-        String path = getPathFromWebroot(fileObject);
-        if (path == null) {
+        YiiFileDescriptor descriptor = getFileDescriptor(fileObject);
+        if (descriptor == null) {
             return null;
         }
-
-        path = path.replaceAll(".+/modules/", path); // NOI18N
-        return path.substring(0, path.indexOf("/")); // NOI18N
+        return descriptor.getModuleName();
     }
 
     /**
@@ -737,25 +665,19 @@ public class YiiUtils {
      * @return current module directory.
      */
     public static FileObject getCurrentModuleDirectory(FileObject fileObject) {
-        if (fileObject == null || !isInModules(fileObject)) {
+        if (fileObject == null) {
             return null;
         }
-        String path = getPathFromWebroot(fileObject);
-        if (path == null) {
+        YiiFileDescriptor descriptor = getFileDescriptor(fileObject);
+        if (descriptor == null || descriptor.getModuleNames().isEmpty()) {
             return null;
         }
-        String modules = "/modules/"; // NOI18N
-        int modulesIndex = path.lastIndexOf(modules);
-
-        // contains module name
-        int moduleIndex = path.indexOf("/", modulesIndex + modules.length()); // NOI18N
-        String modulePath = path.substring(0, moduleIndex);
-        YiiModule yiiModule = YiiModuleFactory.create(PhpModule.Factory.forFileObject(fileObject));
-        FileObject webroot = yiiModule.getWebroot();
-        if (webroot == null) {
+        YiiModule yiiModule = YiiModuleFactory.create(getPhpModule(fileObject));
+        FileObject application = yiiModule.getApplication();
+        if (application == null) {
             return null;
         }
-        return webroot.getFileObject(modulePath);
+        return application.getFileObject(descriptor.getModulePath());
     }
 
     /**
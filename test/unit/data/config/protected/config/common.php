@@ -0,0 +1,25 @@
+<?php
+return array(
+    'name' => 'Common',
+    'theme' => 'basic',
+    'defaultController' => 'post',
+    'import' => array(
+        'application.models.*',
+        'application.components.*',
+    ),
+    'components' => array(
+        'db' => array(
+            'class' => 'CDbConnection',
+            'connectionString' => 'sqlite:common.db',
+        ),
+        'user' => array(
+            'allowAutoLogin' => true,
+        ),
+    ),
+    'modules' => array(
+        'gii' => array(
+            'class' => 'system.gii.GiiModule',
+        ),
+    ),
+    'params' => require(dirname(__FILE__) . '/params.php'),
+);
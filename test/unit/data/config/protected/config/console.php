@@ -0,0 +1,8 @@
+<?php
+return CMap::mergeArray(
+    require(dirname(__FILE__) . '/common.php'),
+    array(
+        'name' => 'Console',
+        'params' => require(dirname(__FILE__) . '/params.php'),
+    )
+);
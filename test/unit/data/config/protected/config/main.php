@@ -0,0 +1,20 @@
+<?php
+Yii::setPathOfAlias('bootstrap', dirname(__FILE__) . '/../extensions/bootstrap');
+
+return CMap::mergeArray(
+    require(dirname(__FILE__) . '/common.php'),
+    array(
+        'theme' => 'classic',
+        'aliases' => array(
+            'chartjs' => realpath(__DIR__ . '/../extensions/chartjs'),
+        ),
+        'components' => array(
+            'db' => array(
+                'connectionString' => 'sqlite:main.db',
+            ),
+        ),
+        'modules' => array(
+            'admin',
+        ),
+    )
+);
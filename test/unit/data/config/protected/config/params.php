@@ -0,0 +1,4 @@
+<?php
+return array(
+    'adminEmail' => 'webmaster@example.com',
+);
@@ -0,0 +1,156 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii;
+
+import java.util.Arrays;
+import org.junit.Test;
+import org.nbphpcouncil.modules.php.yii.YiiFileClassifier.Base;
+import org.nbphpcouncil.modules.php.yii.YiiFileDescriptor.Role;
+import org.netbeans.junit.NbTestCase;
+
+/**
+ *
+ * @author junichi11
+ */
+public class YiiFileClassifierTest extends NbTestCase {
+
+    public YiiFileClassifierTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Test of classify method, of class YiiFileClassifier.
+     */
+    @Test
+    public void testClassifyController() {
+        YiiFileDescriptor descriptor = YiiFileClassifier.classify("controllers/SiteController.php", Base.APPLICATION);
+        assertEquals(Role.CONTROLLER, descriptor.getRole());
+        assertEquals("site", descriptor.getControllerId());
+        assertEquals("", descriptor.getNestedPath());
+        assertNull(descriptor.getModuleName());
+
+        descriptor = YiiFileClassifier.classify("admin/UserController.php", Base.CONTROLLERS);
+        assertEquals(Role.CONTROLLER, descriptor.getRole());
+        assertEquals("user", descriptor.getControllerId());
+        assertEquals("admin/", descriptor.getNestedPath());
+
+        descriptor = YiiFileClassifier.classify("controllers/Helper.php", Base.APPLICATION);
+        assertEquals(Role.OTHER, descriptor.getRole());
+    }
+
+    /**
+     * Test of classify method, of class YiiFileClassifier.
+     */
+    @Test
+    public void testClassifyView() {
+        YiiFileDescriptor descriptor = YiiFileClassifier.classify("site/index.php", Base.VIEWS);
+        assertEquals(Role.VIEW, descriptor.getRole());
+        assertEquals("site", descriptor.getControllerId());
+        assertEquals("", descriptor.getNestedPath());
+        assertEquals("site/index", descriptor.getViewPath());
+
+        descriptor = YiiFileClassifier.classify("views/admin/user/update.php", Base.APPLICATION);
+        assertEquals(Role.VIEW, descriptor.getRole());
+        assertEquals("user", descriptor.getControllerId());
+        assertEquals("admin/", descriptor.getNestedPath());
+        assertEquals("admin/user/update", descriptor.getViewPath());
+
+        descriptor = YiiFileClassifier.classify("layouts/main.php", Base.VIEWS);
+        assertEquals(Role.LAYOUT, descriptor.getRole());
+        assertEquals("", descriptor.getControllerId());
+
+        descriptor = YiiFileClassifier.classify("components/views/menu.php", Base.APPLICATION);
+        assertEquals(Role.VIEW, descriptor.getRole());
+
+        descriptor = YiiFileClassifier.classify("site/index.css", Base.VIEWS);
+        assertEquals(Role.OTHER, descriptor.getRole());
+    }
+
+    /**
+     * Test of classify method, of class YiiFileClassifier.
+     */
+    @Test
+    public void testClassifyTheme() {
+        YiiFileDescriptor descriptor = YiiFileClassifier.classify("classic/views/site/index.php", Base.THEMES);
+        assertEquals(Role.VIEW, descriptor.getRole());
+        assertEquals("classic", descriptor.getThemeName());
+        assertEquals("site/index", descriptor.getViewPath());
+
+        descriptor = YiiFileClassifier.classify("classic/css/main.css", Base.THEMES);
+        assertEquals(Role.THEME, descriptor.getRole());
+        assertEquals("classic", descriptor.getThemeName());
+    }
+
+    /**
+     * Test of classify method, of class YiiFileClassifier.
+     */
+    @Test
+    public void testClassifyModules() {
+        YiiFileDescriptor descriptor = YiiFileClassifier.classify("modules/admin/AdminModule.php", Base.APPLICATION);
+        assertEquals(Role.MODULE, descriptor.getRole());
+        assertEquals("admin", descriptor.getModuleName());
+        assertEquals("modules/admin", descriptor.getModulePath());
+
+        descriptor = YiiFileClassifier.classify("modules/admin/modules/user/views/default/index.php", Base.APPLICATION);
+        assertEquals(Role.VIEW, descriptor.getRole());
+        assertEquals(Arrays.asList("admin", "user"), descriptor.getModuleNames());
+        assertEquals("user", descriptor.getModuleName());
+        assertEquals("modules/admin/modules/user", descriptor.getModulePath());
+        assertEquals("default", descriptor.getControllerId());
+
+        descriptor = YiiFileClassifier.classify("modules/admin/controllers/DefaultController.php", Base.APPLICATION);
+        assertEquals(Role.CONTROLLER, descriptor.getRole());
+        assertEquals("admin", descriptor.getModuleName());
+    }
+
+    /**
+     * Test of classify method, of class YiiFileClassifier.
+     */
+    @Test
+    public void testClassifyOthers() {
+        assertEquals(Role.CONFIG, YiiFileClassifier.classify("config/main.php", Base.APPLICATION).getRole());
+        assertEquals(Role.MESSAGE, YiiFileClassifier.classify("messages/ja/app.php", Base.APPLICATION).getRole());
+        assertEquals(Role.MIGRATION, YiiFileClassifier.classify("migrations/m130101_000000_init.php", Base.APPLICATION).getRole());
+        assertEquals(Role.COMMAND, YiiFileClassifier.classify("commands/ImportCommand.php", Base.APPLICATION).getRole());
+        assertEquals(Role.OTHER, YiiFileClassifier.classify("models/User.php", Base.APPLICATION).getRole());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import org.junit.Test;
+import org.netbeans.junit.NbTestCase;
+import org.netbeans.modules.php.api.phpmodule.PhpModule;
+import org.netbeans.modules.php.api.phpmodule.PhpModuleProperties;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.NbPreferences;
+import org.openide.util.lookup.Lookups;
+
+/**
+ *
+ * @author junichi11
+ */
+public class YiiModuleFactoryTest extends NbTestCase {
+
+    public YiiModuleFactoryTest(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        clearWorkDir();
+    }
+
+    /**
+     * Test of create method, of class YiiModuleFactory.
+     */
+    @Test
+    public void testCreate() throws Exception {
+        PhpModule phpModule = createPhpModule();
+        YiiModule yiiModule = YiiModuleFactory.create(phpModule);
+        assertNotNull(yiiModule);
+        assertSame(yiiModule, YiiModuleFactory.create(phpModule));
+    }
+
+    /**
+     * Test of remove method, of class YiiModuleFactory.
+     */
+    @Test
+    public void testRemove() throws Exception {
+        PhpModule phpModule = createPhpModule();
+        YiiModule yiiModule = YiiModuleFactory.create(phpModule);
+        YiiModuleFactory.remove(phpModule);
+        YiiModule newYiiModule = YiiModuleFactory.create(phpModule);
+        assertNotNull(newYiiModule);
+        assertNotSame(yiiModule, newYiiModule);
+    }
+
+    /**
+     * PhpModule and YiiModule must not be kept by the registry.
+     */
+    @Test
+    public void testNoLeak() throws Exception {
+        PhpModule phpModule = createPhpModule();
+        YiiModule yiiModule = YiiModuleFactory.create(phpModule);
+        Reference<PhpModule> phpModuleReference = new WeakReference<>(phpModule);
+        Reference<YiiModule> yiiModuleReference = new WeakReference<>(yiiModule);
+        phpModule = null;
+        yiiModule = null;
+        assertGC("PhpModule is kept", phpModuleReference);
+        assertGC("YiiModule is kept", yiiModuleReference);
+    }
+
+    private PhpModule createPhpModule() throws Exception {
+        final FileObject workDirectory = FileUtil.toFileObject(getWorkDir());
+        final PhpModuleProperties.Factory factory = new PhpModuleProperties.Factory() {
+            @Override
+            public PhpModuleProperties getProperties() {
+                return new PhpModuleProperties();
+            }
+        };
+        return (PhpModule) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PhpModule.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "getLookup": // NOI18N
+                        return Lookups.singleton(factory);
+                    case "getSourceDirectory": // NOI18N
+                    case "getProjectDirectory": // NOI18N
+                        return workDirectory;
+                    case "getPreferences": // NOI18N
+                        return NbPreferences.forModule(YiiModuleFactoryTest.class).node(getName());
+                    case "getName": // NOI18N
+                    case "getDisplayName": // NOI18N
+                        return getName();
+                    case "isBroken": // NOI18N
+                        return false;
+                    case "hashCode": // NOI18N
+                        return System.identityHashCode(proxy);
+                    case "equals": // NOI18N
+                        return proxy == args[0];
+                    case "toString": // NOI18N
+                        return getName();
+                    default:
+                        return null;
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.config;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.netbeans.junit.NbTestCase;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ *
+ * @author junichi11
+ */
+public class YiiConfigParserTest extends NbTestCase {
+
+    public YiiConfigParserTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Test of mergeArray method, of class YiiConfigParser.
+     */
+    @Test
+    public void testMergeArray() {
+        Map<String, Object> db = new LinkedHashMap<>();
+        db.put("connectionString", "sqlite:testdrive.db");
+        db.put("charset", "utf8");
+        Map<String, Object> components = new LinkedHashMap<>();
+        components.put("db", db);
+        Map<String, Object> a = new LinkedHashMap<>();
+        a.put("0", "log");
+        a.put("name", "My Web Application");
+        a.put("components", components);
+
+        Map<String, Object> testDb = new LinkedHashMap<>();
+        testDb.put("connectionString", "sqlite:test.db");
+        Map<String, Object> testComponents = new LinkedHashMap<>();
+        testComponents.put("db", testDb);
+        Map<String, Object> b = new LinkedHashMap<>();
+        b.put("0", "gii");
+        b.put("name", "Test");
+        b.put("components", testComponents);
+
+        Map<String, Object> result = YiiConfigParser.mergeArray(a, b);
+        assertEquals(Arrays.asList("0", "name", "components", "1"), Arrays.asList(result.keySet().toArray()));
+        assertEquals("log", result.get("0"));
+        assertEquals("gii", result.get("1"));
+        assertEquals("Test", result.get("name"));
+        @SuppressWarnings("unchecked")
+        Map<String, Object> mergedDb = (Map<String, Object>) ((Map<String, Object>) result.get("components")).get("db");
+        assertEquals("sqlite:test.db", mergedDb.get("connectionString"));
+        assertEquals("utf8", mergedDb.get("charset"));
+    }
+
+    /**
+     * Test of isIndex method, of class YiiConfigParser.
+     */
+    @Test
+    public void testIsIndex() {
+        assertTrue(YiiConfigParser.isIndex("0"));
+        assertTrue(YiiConfigParser.isIndex("12"));
+        assertFalse(YiiConfigParser.isIndex(""));
+        assertFalse(YiiConfigParser.isIndex("theme"));
+        assertFalse(YiiConfigParser.isIndex("1a"));
+    }
+
+    /**
+     * Test of YiiConfig.
+     */
+    @Test
+    public void testConfig() {
+        Map<String, Object> urlManager = new LinkedHashMap<>();
+        Map<String, Object> rules = new LinkedHashMap<>();
+        rules.put("<controller:\\w+>/<id:\\d+>", "<controller>/view");
+        urlManager.put("class", "CUrlManager");
+        urlManager.put("rules", rules);
+        Map<String, Object> components = new LinkedHashMap<>();
+        components.put("urlManager", urlManager);
+        components.put("user", new LinkedHashMap<String, Object>());
+        Map<String, Object> gii = new LinkedHashMap<>();
+        gii.put("class", "system.gii.GiiModule");
+        Map<String, Object> modules = new LinkedHashMap<>();
+        modules.put("gii", gii);
+        modules.put("0", "admin");
+        Map<String, Object> imports = new LinkedHashMap<>();
+        imports.put("0", "application.models.*");
+        imports.put("1", "application.components.*");
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("theme", "classic");
+        config.put("components", components);
+        config.put("modules", modules);
+        config.put("import", imports);
+
+        YiiConfig yiiConfig = new YiiConfig(config, Collections.<FileObject>emptySet(), Collections.<String, String>emptyMap());
+        assertEquals("classic", yiiConfig.getTheme());
+        assertEquals("site", yiiConfig.getDefaultController());
+        assertEquals("CUrlManager", yiiConfig.getComponents().get("urlManager"));
+        assertEquals("", yiiConfig.getComponents().get("user"));
+        assertEquals(Arrays.asList("gii", "admin"), yiiConfig.getModules());
+        assertEquals(Arrays.asList("application.models.*", "application.components.*"), yiiConfig.getImports());
+        assertEquals("<controller>/view", yiiConfig.getUrlRules().get("<controller:\\w+>/<id:\\d+>"));
+        assertTrue(yiiConfig.getParams().isEmpty());
+    }
+
+    /**
+     * Test of parse method, of class YiiConfigParser. main.php requires
+     * common.php with CMap::mergeArray(), and common.php requires params.php.
+     */
+    @Test
+    public void testParse() {
+        FileObject configDirectory = getConfigDirectory();
+        FileObject main = configDirectory.getFileObject("main.php");
+        YiiConfig yiiConfig = YiiConfigParser.parse(main);
+        assertEquals("classic", yiiConfig.getTheme());
+        assertEquals("post", yiiConfig.getDefaultController());
+        assertEquals("CDbConnection", yiiConfig.getComponents().get("db"));
+        assertEquals("", yiiConfig.getComponents().get("user"));
+        assertEquals(Arrays.asList("gii", "admin"), yiiConfig.getModules());
+        assertEquals(Arrays.asList("application.models.*", "application.components.*"), yiiConfig.getImports());
+        assertEquals("webmaster@example.com", yiiConfig.getParams().get("adminEmail"));
+        assertEquals(Arrays.asList(main, configDirectory.getFileObject("common.php"), configDirectory.getFileObject("params.php")),
+                Arrays.asList(yiiConfig.getFiles().toArray()));
+    }
+
+    /**
+     * Test of parse method, of class YiiConfigParser. console.php requires
+     * params.php again after common.php.
+     */
+    @Test
+    public void testParseRequiredTwice() {
+        FileObject configDirectory = getConfigDirectory();
+        FileObject console = configDirectory.getFileObject("console.php");
+        YiiConfig yiiConfig = YiiConfigParser.parse(console);
+        assertEquals("webmaster@example.com", yiiConfig.getParams().get("adminEmail"));
+        assertEquals(Arrays.asList(console, configDirectory.getFileObject("common.php"), configDirectory.getFileObject("params.php")),
+                Arrays.asList(yiiConfig.getFiles().toArray()));
+    }
+
+    /**
+     * Test of aliases of the config and Yii::setPathOfAlias().
+     */
+    @Test
+    public void testParseAliases() {
+        FileObject configDirectory = getConfigDirectory();
+        File extensions = FileUtil.normalizeFile(new File(FileUtil.toFile(configDirectory), "../extensions"));
+        YiiConfig yiiConfig = YiiConfigParser.parse(configDirectory.getFileObject("main.php"));
+        assertEquals(new File(extensions, "chartjs").getPath(), yiiConfig.getAliases().get("chartjs"));
+        assertEquals(new File(extensions, "bootstrap").getPath(), yiiConfig.getAliases().get("bootstrap"));
+
+        Map<String, String> aliases = YiiConfigParser.parseAliases(configDirectory.getFileObject("main.php"));
+        assertEquals(Collections.singletonMap("bootstrap", new File(extensions, "bootstrap").getPath()), aliases);
+    }
+
+    /**
+     * Test of parse method for a missing file.
+     */
+    @Test
+    public void testParseMissingFile() {
+        assertSame(YiiConfig.EMPTY, YiiConfigParser.parse(null));
+    }
+
+    private FileObject getConfigDirectory() {
+        FileObject dataDirectory = FileUtil.toFileObject(getDataDir());
+        assertNotNull(dataDirectory);
+        FileObject configDirectory = dataDirectory.getFileObject("config/protected/config");
+        assertNotNull(configDirectory);
+        return configDirectory;
+    }
+}
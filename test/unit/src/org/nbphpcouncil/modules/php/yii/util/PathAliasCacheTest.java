@@ -0,0 +1,120 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.util;
+
+import java.util.Collections;
+import org.junit.Test;
+import org.netbeans.junit.NbTestCase;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+
+/**
+ *
+ * @author junichi11
+ */
+public class PathAliasCacheTest extends NbTestCase {
+
+    private FileObject application;
+    private FileObject component;
+    private PathAliasTrie<FileObject> aliases;
+
+    public PathAliasCacheTest(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        FileObject root = FileUtil.createMemoryFileSystem().getRoot();
+        application = root.createFolder("protected");
+        component = FileUtil.createData(application, "components/MyComponent.php");
+        aliases = new PathAliasTrie<>(Collections.singletonMap("application", application));
+    }
+
+    /**
+     * Test of getFileObject method, of class PathAliasCache.
+     */
+    @Test
+    public void testGetFileObject() {
+        PathAliasCache cache = new PathAliasCache();
+        assertEquals(component, cache.getFileObject(aliases, "application.components.MyComponent"));
+        assertEquals(application, cache.getFileObject(aliases, "application"));
+        assertNull(cache.getFileObject(aliases, "application.components.Unknown"));
+        assertNull(cache.getFileObject(aliases, "unknown.Alias"));
+        assertEquals(3, cache.size());
+
+        // rebuilt aliases
+        PathAliasTrie<FileObject> newAliases = new PathAliasTrie<>(Collections.singletonMap("application", application));
+        assertEquals(component, cache.getFileObject(newAliases, "application.components.MyComponent"));
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * Test of filesChanged method, of class PathAliasCache.
+     */
+    @Test
+    public void testFilesChanged() throws Exception {
+        PathAliasCache cache = new PathAliasCache();
+        assertNull(cache.getFileObject(aliases, "application.components.NewComponent"));
+        FileObject newComponent = application.getFileObject("components").createData("NewComponent", "php");
+        // negative result is cached until the event is delivered
+        assertNull(cache.getFileObject(aliases, "application.components.NewComponent"));
+        // changes of contents don't affect the resolution
+        cache.filesChanged(Collections.singleton(newComponent), false);
+        assertEquals(1, cache.size());
+        cache.filesChanged(Collections.singleton(newComponent), true);
+        assertEquals(0, cache.size());
+        assertEquals(newComponent, cache.getFileObject(aliases, "application.components.NewComponent"));
+    }
+
+    /**
+     * Test of LRU eviction, of class PathAliasCache.
+     */
+    @Test
+    public void testMaxSize() {
+        PathAliasCache cache = new PathAliasCache();
+        for (int i = 0; i < PathAliasCache.MAX_SIZE + 10; i++) {
+            cache.getFileObject(aliases, "application.components.Unknown" + i);
+        }
+        assertEquals(PathAliasCache.MAX_SIZE, cache.size());
+    }
+}
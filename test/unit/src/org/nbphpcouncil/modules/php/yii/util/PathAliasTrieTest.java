@@ -0,0 +1,122 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.util;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.netbeans.junit.NbTestCase;
+
+/**
+ *
+ * @author junichi11
+ */
+public class PathAliasTrieTest extends NbTestCase {
+
+    private PathAliasTrie<String> trie;
+
+    public PathAliasTrieTest(String name) {
+        super(name);
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Map<String, String> aliases = new LinkedHashMap<>();
+        aliases.put("application", "/var/www/protected");
+        aliases.put("system", "/opt/yii/framework");
+        aliases.put("bootstrap", "/var/www/protected/extensions/bootstrap");
+        aliases.put("application.vendors", "/var/www/vendors");
+        trie = new PathAliasTrie<>(aliases);
+    }
+
+    /**
+     * Test of get method, of class PathAliasTrie.
+     */
+    @Test
+    public void testGet() {
+        assertEquals("/var/www/protected", trie.get("application"));
+        assertEquals("/var/www/vendors", trie.get("application.vendors"));
+        assertEquals(null, trie.get("application.models"));
+        assertEquals(null, trie.get(""));
+        assertEquals(null, trie.get(null));
+    }
+
+    /**
+     * Test of find method, of class PathAliasTrie.
+     */
+    @Test
+    public void testFind() {
+        PathAliasTrie.Match<String> match = trie.find("application.models.Post");
+        assertEquals("application", match.getAlias());
+        assertEquals("/var/www/protected", match.getValue());
+        assertEquals(Arrays.asList("models", "Post"), match.getRest());
+
+        // longest alias
+        match = trie.find("application.vendors.Foo");
+        assertEquals("application.vendors", match.getAlias());
+        assertEquals(Collections.singletonList("Foo"), match.getRest());
+
+        match = trie.find("bootstrap");
+        assertEquals("/var/www/protected/extensions/bootstrap", match.getValue());
+        assertTrue(match.getRest().isEmpty());
+
+        assertEquals(null, trie.find("unknown.Foo"));
+        assertEquals(null, trie.find(""));
+        assertEquals(null, trie.find(null));
+    }
+
+    /**
+     * Test of getAliases method, of class PathAliasTrie.
+     */
+    @Test
+    public void testGetAliases() {
+        assertEquals(Arrays.asList("application", "application.vendors", "bootstrap", "system"), trie.getAliases(""));
+        assertEquals(Arrays.asList("application", "application.vendors"), trie.getAliases("app"));
+        assertEquals(Arrays.asList("application.vendors"), trie.getAliases("application.v"));
+        assertEquals(Arrays.asList("bootstrap"), trie.getAliases("b"));
+        assertTrue(trie.getAliases("x").isEmpty());
+        assertTrue(trie.getAliases("unknown.x").isEmpty());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ *
+ * Contributor(s):
+ *
+ * Portions Copyrighted 2013 Sun Microsystems, Inc.
+ */
+package org.nbphpcouncil.modules.php.yii.util;
+
+import org.junit.Test;
+import org.nbphpcouncil.modules.php.yii.util.YiiCallContext.Receiver;
+import org.netbeans.api.lexer.TokenHierarchy;
+import org.netbeans.api.lexer.TokenSequence;
+import org.netbeans.junit.NbTestCase;
+import org.netbeans.modules.php.editor.lexer.PHPTokenId;
+
+/**
+ *
+ * @author junichi11
+ */
+public class YiiCallContextTest extends NbTestCase {
+
+    private static final String CARET = "^";
+
+    public YiiCallContextTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Test of analyze method, of class YiiCallContext.
+     */
+    @Test
+    public void testAnalyze() {
+        YiiCallContext context = analyze("<?php $this->render('^index');");
+        assertEquals(Receiver.THIS, context.getReceiver());
+        assertEquals("render", context.getMethodName());
+        assertEquals(0, context.getArgumentIndex());
+        assertEquals(0, context.getNestingDepth());
+
+        context = analyze("<?php Yii::t('app', '^message');");
+        assertEquals(Receiver.YII, context.getReceiver());
+        assertEquals("t", context.getMethodName());
+        assertEquals(1, context.getArgumentIndex());
+
+        context = analyze("<?php Yii::app()->getRequest('^');");
+        assertEquals(Receiver.YII_APP, context.getReceiver());
+        assertEquals("getRequest", context.getMethodName());
+
+        context = analyze("<?php $form->textField($model, '^name');");
+        assertEquals(Receiver.VARIABLE, context.getReceiver());
+        assertEquals("$form", context.getReceiverName());
+        assertEquals(1, context.getArgumentIndex());
+    }
+
+    /**
+     * Test of analyze method, of class YiiCallContext.
+     */
+    @Test
+    public void testAnalyzeNested() {
+        YiiCallContext context = analyze("<?php $this->render('index', array('a' => foo(1, 2), '^b' => 2));");
+        assertEquals("render", context.getMethodName());
+        assertEquals(1, context.getArgumentIndex());
+        assertEquals(1, context.getNestingDepth());
+
+        context = analyze("<?php $this->widget('zii.widgets.CMenu', ['items' => [['label' => '^Home']]]);");
+        assertEquals("widget", context.getMethodName());
+        assertEquals(1, context.getArgumentIndex());
+        assertEquals(3, context.getNestingDepth());
+    }
+
+    /**
+     * Test of analyze method for a long multi-line array. Whitespaces and
+     * comments are not counted.
+     */
+    @Test
+    public void testAnalyzeLongArray() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?php $this->widget('zii.widgets.grid.CGridView', array(\n");
+        sb.append("    'dataProvider' => $dataProvider,\n");
+        sb.append("    'columns' => array(\n");
+        for (int i = 0; i < 100; i++) {
+            sb.append("        // column ").append(i).append("\n");
+            sb.append("        array(\n");
+            sb.append("            'name' => 'column").append(i).append("',\n");
+            sb.append("            'value' => '$data->column").append(i).append("',\n");
+            sb.append("        ),\n");
+        }
+        sb.append("    ),\n");
+        sb.append("    '^' => true,\n");
+        sb.append("));");
+        YiiCallContext context = analyze(sb.toString());
+        assertNotNull(context);
+        assertEquals(Receiver.THIS, context.getReceiver());
+        assertEquals("widget", context.getMethodName());
+        assertEquals(1, context.getArgumentIndex());
+        assertEquals(1, context.getNestingDepth());
+    }
+
+    /**
+     * Test of analyze method, of class YiiCallContext.
+     */
+    @Test
+    public void testAnalyzeOutOfCall() {
+        assertNull(analyze("<?php $this->render('index'); $a = '^b';"));
+        assertNull(analyze("<?php if ('^a' == $b) {}"));
+    }
+
+    private static YiiCallContext analyze(String code) {
+        int offset = code.indexOf(CARET);
+        String text = code.replace(CARET, "");
+        TokenHierarchy<String> hierarchy = TokenHierarchy.create(text, PHPTokenId.language());
+        TokenSequence<PHPTokenId> ts = hierarchy.tokenSequence(PHPTokenId.language());
+        return YiiCallContext.analyze(ts, offset);
+    }
+}